@@ -0,0 +1,264 @@
+package minesweeper;
+
+import minesweeper.core.Field;
+import minesweeper.solver.NoGuessGenerator;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Pool of fields generated in advance for the current settings.
+ *
+ * Fields are generated by one background thread until the pool is full,
+ * so a new game only takes a ready field. Every change of settings starts
+ * a new generation of the pool: ready fields are thrown away, and so are
+ * fields which were being generated at the time of the change.
+ * When the pool is empty, the taken field is completed by the background
+ * thread as soon as it is generated, so the calling thread never waits.
+ */
+public class BoardPool {
+
+    /**
+     * Fields ready to be played. Fields are added only while their
+     * generation is current.
+     */
+    private final BlockingQueue<Field> fields;
+
+    /**
+     * Takes waiting for a field, in the order in which they were made.
+     * Generated field goes to the first waiting take before the pool.
+     */
+    private final Queue<CompletableFuture<Field>> waiting = new ArrayDeque<>();
+
+    /**
+     * Background thread which generates fields.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Settings of generated fields.
+     */
+    private Settings setting;
+
+    /**
+     * True if generated fields can be solved without guessing.
+     */
+    private boolean noGuessing;
+
+    /**
+     * Current generation, increased on every change of settings.
+     */
+    private int generation;
+
+    /**
+     * Generator of fields without guessing, created when first needed.
+     */
+    private NoGuessGenerator noGuessGenerator;
+
+    /**
+     * Constructor. Pool starts filling immediately.
+     *
+     * @param capacity   maximal count of ready fields
+     * @param setting    settings of generated fields
+     * @param noGuessing true if fields can be solved without guessing
+     */
+    public BoardPool(int capacity, Settings setting, boolean noGuessing) {
+        fields = new ArrayBlockingQueue<>(capacity);
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Board pool");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+
+        this.setting = setting;
+        this.noGuessing = noGuessing;
+        refill();
+    }
+
+    /**
+     * Changes settings of generated fields. Ready fields with old
+     * settings are thrown away.
+     *
+     * @param setting    settings of generated fields
+     * @param noGuessing true if fields can be solved without guessing
+     */
+    public synchronized void reset(Settings setting, boolean noGuessing) {
+        if (setting.equals(this.setting) && noGuessing == this.noGuessing) {
+            return;
+        }
+
+        this.setting = setting;
+        this.noGuessing = noGuessing;
+        ++generation;
+        fields.clear();
+        refill();
+    }
+
+    /**
+     * Takes ready field and starts refilling the pool. When the pool is
+     * empty, returned future is completed on the background thread by the
+     * next generated field. After shutdown, field is generated on the
+     * calling thread.
+     *
+     * @return future of the new field
+     */
+    public CompletableFuture<Field> take() {
+        final CompletableFuture<Field> future;
+        final Settings currentSetting;
+        final boolean currentNoGuessing;
+
+        synchronized (this) {
+            final Field field = fields.poll();
+
+            if (field != null) {
+                future = CompletableFuture.completedFuture(field);
+            }
+            else {
+                future = new CompletableFuture<>();
+                waiting.add(future);
+            }
+
+            currentSetting = setting;
+            currentNoGuessing = noGuessing;
+        }
+
+        if (!refill() && !future.isDone()) {
+            synchronized (this) {
+                waiting.remove(future);
+            }
+            future.complete(createField(currentSetting, currentNoGuessing));
+        }
+
+        return future;
+    }
+
+    /**
+     * Returns count of ready fields.
+     *
+     * @return count of ready fields
+     */
+    public int getReadyCount() {
+        return fields.size();
+    }
+
+    /**
+     * Stops the background thread. Waiting takes are cancelled, later
+     * fields are generated on the calling thread.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+
+        synchronized (this) {
+            while (!waiting.isEmpty()) {
+                waiting.poll().cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Generates fields of the current generation until no take is waiting
+     * and the pool is full. Field generated while the generation changed
+     * is thrown away.
+     *
+     * @return false if the pool is shut down
+     */
+    private boolean refill() {
+        try {
+            executor.execute(() -> {
+                while (true) {
+                    final int current;
+                    final Settings currentSetting;
+                    final boolean currentNoGuessing;
+
+                    synchronized (this) {
+                        if (waiting.isEmpty() &&
+                                fields.remainingCapacity() == 0) {
+                            return;
+                        }
+
+                        current = generation;
+                        currentSetting = setting;
+                        currentNoGuessing = noGuessing;
+                    }
+
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+
+                    final Field field =
+                            createField(currentSetting, currentNoGuessing);
+                    final CompletableFuture<Field> future;
+
+                    synchronized (this) {
+                        if (current != generation) {
+                            continue;
+                        }
+
+                        future = waiting.poll();
+                        if (future == null && !fields.offer(field)) {
+                            return;
+                        }
+                    }
+
+                    // Completed outside of the lock, dependent actions
+                    // of the take may run on this thread.
+                    if (future != null) {
+                        future.complete(field);
+                    }
+                }
+            });
+
+            return true;
+        }
+        catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Generates field. If no field without guessing is found, ordinary
+     * field is generated.
+     *
+     * @param setting    settings of the field
+     * @param noGuessing true if field can be solved without guessing
+     * @return new field
+     */
+    private Field createField(Settings setting, boolean noGuessing) {
+        if (noGuessing) {
+            try {
+                return getNoGuessGenerator().generate(setting.getRowCount(),
+                        setting.getColumnCount(),
+                        setting.getMineCount(),
+                        setting.getRowCount() / 2,
+                        setting.getColumnCount() / 2);
+            }
+            catch (IllegalStateException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+
+        return new Field(setting.getRowCount(),
+                setting.getColumnCount(),
+                setting.getMineCount());
+    }
+
+    /**
+     * Returns generator of fields without guessing.
+     *
+     * @return generator of fields without guessing
+     */
+    private synchronized NoGuessGenerator getNoGuessGenerator() {
+        if (noGuessGenerator == null) {
+            noGuessGenerator = new NoGuessGenerator();
+        }
+
+        return noGuessGenerator;
+    }
+}
@@ -0,0 +1,85 @@
+package minesweeper;
+
+import minesweeper.core.Field;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+public class BoardPoolTest {
+
+    @Test
+    public void poolFillsInBackground() throws InterruptedException {
+        BoardPool pool = new BoardPool(3, Settings.EXPERT, false);
+
+        for (int i = 0; i < 500 && pool.getReadyCount() < 3; ++i) {
+            Thread.sleep(10);
+        }
+        assertEquals(3, pool.getReadyCount());
+
+        Field field = pool.take().join();
+        assertEquals(Settings.EXPERT.getRowCount(), field.getRowCount());
+        assertEquals(Settings.EXPERT.getMineCount(), field.getMineCount());
+
+        pool.shutdown();
+    }
+
+    @Test
+    public void resetDiscardsStaleFields() throws InterruptedException {
+        BoardPool pool = new BoardPool(4, Settings.BEGINNER, false);
+        Settings setting = new Settings(20, 25, 60);
+
+        for (int i = 0; i < 50; ++i) {
+            pool.reset(i % 2 == 0 ? setting : Settings.BEGINNER, false);
+            Thread.sleep(1);
+        }
+
+        for (int i = 0; i < 20; ++i) {
+            Field field = pool.take().join();
+
+            assertEquals(Settings.BEGINNER.getRowCount(), field.getRowCount());
+            assertEquals(Settings.BEGINNER.getColumnCount(),
+                    field.getColumnCount());
+            assertEquals(Settings.BEGINNER.getMineCount(), field.getMineCount());
+        }
+
+        pool.shutdown();
+    }
+
+    @Test
+    public void emptyPoolCompletesTakeInBackground() {
+        Settings setting = new Settings(2000, 2000, 400000);
+        BoardPool pool = new BoardPool(1, setting, false);
+        List<CompletableFuture<Field>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 3; ++i) {
+            futures.add(pool.take());
+        }
+        assertFalse(futures.get(2).isDone());
+
+        for (CompletableFuture<Field> future : futures) {
+            Field field = future.join();
+
+            assertEquals(setting.getRowCount(), field.getRowCount());
+            assertEquals(setting.getMineCount(), field.getMineCount());
+        }
+
+        pool.shutdown();
+    }
+
+    @Test
+    public void takeAfterShutdownGeneratesField() {
+        BoardPool pool = new BoardPool(1, Settings.BEGINNER, false);
+
+        pool.shutdown();
+        for (int i = 0; i < 3; ++i) {
+            Field field = pool.take().join();
+
+            assertEquals(Settings.BEGINNER.getMineCount(),
+                    field.getMineCount());
+        }
+    }
+}
@@ -15,4 +15,11 @@ public interface IUserInterface {
      * Updates user interface
      */
     void update();
+
+    /**
+     * Runs the task later on the thread of the user interface.
+     *
+     * @param task task to run
+     */
+    void execute(Runnable task);
 }
@@ -3,6 +3,11 @@ package minesweeper;
 import minesweeper.consoleui.ConsoleUI;
 import minesweeper.swingui.SwingUI;
 import minesweeper.core.Field;
+import minesweeper.core.SavedGame;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 
 /**
@@ -14,6 +19,17 @@ import minesweeper.core.Field;
  */
 public class Minesweeper {
 
+    /**
+     * Saved game file path.
+     */
+    private static final Path GAME_FILE =
+            Paths.get(System.getProperty("user.home"), "minesweeper.save");
+
+    /**
+     * Count of fields generated in advance.
+     */
+    private static final int BOARD_POOL_CAPACITY = 3;
+
     /**
      * Single instance of Minesweeper.
      */
@@ -45,6 +61,16 @@ public class Minesweeper {
      */
     private Settings setting;
 
+    /**
+     * True if new games can be solved without guessing.
+     */
+    private boolean noGuessing;
+
+    /**
+     * Fields generated in advance for the current settings.
+     */
+    private BoardPool boardPool;
+
     /**
      * Constructor.
      */
@@ -52,6 +78,7 @@ public class Minesweeper {
         instance = this;
 
         setting = Settings.load();
+        boardPool = new BoardPool(BOARD_POOL_CAPACITY, setting, noGuessing);
 
         userInterface = createUserInterface(DEFAULT_UI);
         stopwatch = new Stopwatch();
@@ -90,17 +117,78 @@ public class Minesweeper {
     }
 
     /**
-     * Starts new game.
+     * Starts new game with a field from the pool. Game without guessing
+     * starts with the middle tile open. When the pool is empty, game
+     * starts on the thread of the user interface once the field is
+     * generated, the calling thread does not wait for it.
      */
     public void newGame() {
-        field = new Field(setting.getRowCount(),
-                setting.getColumnCount(),
-                setting.getMineCount());
+        boardPool.take().thenAccept(next ->
+                userInterface.execute(() -> startGame(next)));
+    }
+
+    /**
+     * Starts game with the field.
+     *
+     * @param field new field
+     */
+    private void startGame(Field field) {
+        this.field = field;
 
         stopwatch.start();
         userInterface.newGameStarted(field);
     }
 
+    /**
+     * Saves current game into the file in user home directory.
+     */
+    public void saveGame() {
+        saveGame(field, stopwatch.elapsedTimeMillis());
+    }
+
+    /**
+     * Saves game into the file in user home directory. Field and time are
+     * passed in, so the game can be saved on another thread than the one
+     * which starts new games.
+     *
+     * @param field         field of the game
+     * @param elapsedMillis elapsed playing time in milliseconds
+     */
+    public void saveGame(Field field, long elapsedMillis) {
+        try {
+            SavedGame.save(GAME_FILE, field, elapsedMillis);
+        }
+        catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Loads saved game from the file in user home directory, if it
+     * possible. If not, current game continues.
+     */
+    public void loadGame() {
+        try {
+            SavedGame game = SavedGame.load(GAME_FILE);
+
+            field = game.getField();
+            stopwatch.start(game.getElapsedMillis());
+            userInterface.newGameStarted(field);
+        }
+        catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Returns playing time in milliseconds.
+     *
+     * @return playing milliseconds
+     */
+    public long getPlayingMillis() {
+        return stopwatch.elapsedTimeMillis();
+    }
+
     /**
      * Return playing seconds.
      *
@@ -127,6 +215,27 @@ public class Minesweeper {
     public void setSetting(Settings setting) {
         this.setting = setting;
         setting.save();
+        boardPool.reset(setting, noGuessing);
+    }
+
+    /**
+     * Returns true if new games can be solved without guessing.
+     *
+     * @return true if new games need no guessing
+     */
+    public boolean isNoGuessing() {
+        return noGuessing;
+    }
+
+    /**
+     * Sets whether new games can be solved without guessing. Choice is
+     * not saved with settings.
+     *
+     * @param noGuessing true if new games need no guessing
+     */
+    public void setNoGuessing(boolean noGuessing) {
+        this.noGuessing = noGuessing;
+        boardPool.reset(setting, noGuessing);
     }
 
     /**
@@ -1,19 +1,34 @@
 package minesweeper;
 
-import java.io.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Settings class
  */
-public class Settings implements Serializable {
+public class Settings {
 
     /**
      * Setting file path
      */
-    private static final String SETTING_FILE =
-            System.getProperty("user.home") +
-            System.getProperty("file.separator") +
-            "minesweeper.settings";
+    private static final Path SETTING_FILE =
+            Paths.get(System.getProperty("user.home"), "minesweeper.settings");
+
+    /**
+     * Version of the setting file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Size of the setting file in bytes.
+     */
+    private static final int SETTING_SIZE = 16;
 
     /**
      * BEGINNER Settings object
@@ -95,16 +110,46 @@ public class Settings implements Serializable {
      * @return saved setting
      */
     public static Settings load() {
-        try {
-            FileInputStream fileInputStream =
-                    new FileInputStream(SETTING_FILE);
-
-            ObjectInputStream objectInputStream =
-                    new ObjectInputStream(fileInputStream);
+        return load(SETTING_FILE);
+    }
 
-            return (Settings) objectInputStream.readObject();
+    /**
+     * Returns setting saved in the file, if it possible. File which is
+     * too short, or whose sizes can not make a field with at least one
+     * clue, is not valid and BEGINNER setting is returned.
+     *
+     * @param file path of the file
+     * @return saved setting
+     */
+    static Settings load(Path file) {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(SETTING_SIZE);
+
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException(file + " is not complete");
+                }
+            }
+            buffer.flip();
+
+            if (buffer.getInt() != VERSION) {
+                throw new IOException(file + " has unknown version");
+            }
+
+            final int rowCount = buffer.getInt();
+            final int columnCount = buffer.getInt();
+            final int mineCount = buffer.getInt();
+
+            if (rowCount <= 0 || columnCount <= 0 || mineCount < 0 ||
+                    mineCount >= (long) rowCount * columnCount ||
+                    (long) rowCount * columnCount > Integer.MAX_VALUE) {
+                throw new IOException(file + " is not valid");
+            }
+
+            return new Settings(rowCount, columnCount, mineCount);
         }
-        catch (IOException | ClassNotFoundException e) {
+        catch (IOException e) {
             System.out.println(e.getMessage());
 
             return BEGINNER;
@@ -115,17 +160,42 @@ public class Settings implements Serializable {
      * Saves setting into the file in user home directory.
      */
     public void save() {
-        try {
-            FileOutputStream fileOutputStream =
-                    new FileOutputStream(SETTING_FILE);
-
-            ObjectOutputStream objectOutputStream =
-                    new ObjectOutputStream(fileOutputStream);
+        save(SETTING_FILE);
+    }
 
-            objectOutputStream.writeObject(this);
+    /**
+     * Saves setting into the file. File is written and flushed to the disk
+     * next to the target path first and then moved to it at once, so it is
+     * never left half written.
+     *
+     * @param file path of the file
+     */
+    void save(Path file) {
+        Path temporaryFile =
+                file.resolveSibling(file.getFileName() + ".tmp");
 
-            objectOutputStream.close();
-            fileOutputStream.close();
+        try {
+            try (FileChannel channel = FileChannel.open(temporaryFile,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(SETTING_SIZE);
+
+                buffer.putInt(VERSION);
+                buffer.putInt(rowCount);
+                buffer.putInt(columnCount);
+                buffer.putInt(mineCount);
+                buffer.flip();
+
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+
+            Files.move(temporaryFile, file,
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
         }
         catch (IOException e) {
             System.out.println(e.getMessage());
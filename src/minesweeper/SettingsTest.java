@@ -0,0 +1,52 @@
+package minesweeper;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class SettingsTest {
+
+    @Test
+    public void savedSettingIsLoaded() throws IOException {
+        Path file = Files.createTempFile("minesweeper", ".settings");
+        Settings setting = new Settings(20, 25, 60);
+
+        setting.save(file);
+
+        assertEquals(setting, Settings.load(file));
+        Files.delete(file);
+    }
+
+    @Test
+    public void invalidSettingFallsBackToBeginner() throws IOException {
+        Path file = Files.createTempFile("minesweeper", ".settings");
+        int[][] records = {
+                {1, 0, 9, 10},
+                {1, 9, -9, 10},
+                {1, 9, 9, -1},
+                {1, 9, 9, 81},
+                {1, 100000, 100000, 10},
+                {2, 9, 9, 10}
+        };
+
+        for (int[] record : records) {
+            ByteBuffer buffer = ByteBuffer.allocate(16);
+            for (int value : record) {
+                buffer.putInt(value);
+            }
+            Files.write(file, buffer.array());
+
+            assertEquals(Settings.BEGINNER, Settings.load(file));
+        }
+
+        Files.write(file, new byte[]{0, 0, 0, 1, 0, 0});
+        assertEquals(Settings.BEGINNER, Settings.load(file));
+
+        Files.delete(file);
+    }
+}
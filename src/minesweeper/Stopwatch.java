@@ -17,6 +17,15 @@ public class Stopwatch {
         startTime = System.currentTimeMillis();
     }
 
+    /**
+     * Start stopwatch which has already measured specified time.
+     *
+     * @param elapsedMillis already measured time in ms
+     */
+    public void start(long elapsedMillis) {
+        startTime = System.currentTimeMillis() - elapsedMillis;
+    }
+
     /**
      * Reset stopwatch.
      */
@@ -30,6 +39,15 @@ public class Stopwatch {
      * @return elapsed time in secdonds
      */
     public int elapsedTimeSeconds() {
-        return (int) ((System.currentTimeMillis() - startTime) / 1000);
+        return (int) (elapsedTimeMillis() / 1000);
+    }
+
+    /**
+     * Returns elapsed time in ms.
+     *
+     * @return elapsed time in ms
+     */
+    public long elapsedTimeMillis() {
+        return System.currentTimeMillis() - startTime;
     }
 }
@@ -85,6 +85,17 @@ public class ConsoleUI implements minesweeper.IUserInterface {
         System.exit(0);
     }
 
+    /**
+     * Runs the task on a new console thread, which reads the input of
+     * the game.
+     *
+     * @param task task to run
+     */
+    @Override
+    public void execute(Runnable task) {
+        new Thread(task, "Console").start();
+    }
+
     /**
      * Updates user interface - prints the field.
      */
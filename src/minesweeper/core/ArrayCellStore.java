@@ -0,0 +1,114 @@
+package minesweeper.core;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Storage of packed field cells on the heap.
+ *
+ * Cells are split into pages which are shared by copies of the storage.
+ * Page is copied only when it is changed while shared, so a copy costs
+ * one reference per page and memory grows only with changed pages.
+ * Copy changes nothing but the epoch of the original, so it can be made
+ * by another thread than the one which changes the cells.
+ */
+class ArrayCellStore extends CellStore {
+
+    /**
+     * Pages of packed cells.
+     */
+    private final byte[][] pages;
+
+    /**
+     * Epoch in which each page was created by this storage. Page of an
+     * older epoch may be shared with a copy and is copied before it is
+     * changed.
+     */
+    private final long[] owners;
+
+    /**
+     * Current epoch, increased by every copy.
+     */
+    private final AtomicLong epoch = new AtomicLong();
+
+    /**
+     * Count of cells.
+     */
+    private final int size;
+
+    /**
+     * Constructor.
+     *
+     * @param size count of cells
+     */
+    ArrayCellStore(int size) {
+        this.size = size;
+
+        final int pageCount = pageCount(size);
+        pages = new byte[pageCount][];
+        owners = new long[pageCount];
+
+        for (int page = 0; page < pageCount; ++page) {
+            pages[page] = new byte[Math.min(size - (page << PAGE_BITS),
+                    1 << PAGE_BITS)];
+        }
+    }
+
+    /**
+     * Constructor of a storage which shares all pages with another one.
+     *
+     * @param pages pages of the other storage, which are never changed
+     * @param size  count of cells
+     */
+    ArrayCellStore(byte[][] pages, int size) {
+        this.size = size;
+        this.pages = pages;
+        owners = new long[pages.length];
+
+        Arrays.fill(owners, -1);
+    }
+
+    @Override
+    int size() {
+        return size;
+    }
+
+    @Override
+    byte get(int index) {
+        return pages[index >>> PAGE_BITS][index & PAGE_MASK];
+    }
+
+    @Override
+    void set(int index, byte cell) {
+        final int page = index >>> PAGE_BITS;
+        final long current = epoch.get();
+
+        if (owners[page] != current) {
+            pages[page] = pages[page].clone();
+            owners[page] = current;
+        }
+
+        pages[page][index & PAGE_MASK] = cell;
+    }
+
+    @Override
+    void fill(byte cell) {
+        final long current = epoch.get();
+
+        for (int page = 0; page < pages.length; ++page) {
+            if (owners[page] != current) {
+                pages[page] = new byte[pages[page].length];
+                owners[page] = current;
+            }
+
+            Arrays.fill(pages[page], cell);
+        }
+    }
+
+    @Override
+    CellStore copy() {
+        epoch.incrementAndGet();
+
+        return new ArrayCellStore(pages.clone(), size);
+    }
+}
@@ -0,0 +1,159 @@
+package minesweeper.core;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Storage of packed field cells shared by many threads.
+ *
+ * Every change of a tile state is one compare-and-set of its byte, so
+ * threads do not need locks to change different tiles and never lose
+ * a change of the same tile. Cells are split into pages which are
+ * shared by copies. Copy is made while no cell is changed; the first
+ * change of a page afterwards replaces the page by its copy with one
+ * compare-and-set, so threads which change the page at the same time
+ * agree on one copy.
+ */
+class AtomicCellStore extends CellStore {
+
+    /**
+     * Handle for atomic access to the cells of a page.
+     */
+    private static final VarHandle CELLS =
+            MethodHandles.arrayElementVarHandle(byte[].class);
+
+    /**
+     * Handle for atomic access to the pages.
+     */
+    private static final VarHandle PAGES =
+            MethodHandles.arrayElementVarHandle(Page[].class);
+
+    /**
+     * Pages of packed cells.
+     */
+    private final Page[] pages;
+
+    /**
+     * Count of cells.
+     */
+    private final int size;
+
+    /**
+     * Current epoch, increased by every copy.
+     */
+    private volatile long epoch;
+
+    /**
+     * Constructor.
+     *
+     * @param size count of cells
+     */
+    AtomicCellStore(int size) {
+        this.size = size;
+
+        pages = new Page[pageCount(size)];
+        for (int page = 0; page < pages.length; ++page) {
+            pages[page] = new Page(new byte[Math.min(size - (page << PAGE_BITS),
+                    1 << PAGE_BITS)], 0);
+        }
+    }
+
+    @Override
+    int size() {
+        return size;
+    }
+
+    @Override
+    byte get(int index) {
+        final Page page = (Page) PAGES.getAcquire(pages, index >>> PAGE_BITS);
+
+        return (byte) CELLS.getAcquire(page.cells, index & PAGE_MASK);
+    }
+
+    @Override
+    void set(int index, byte cell) {
+        CELLS.setRelease(own(index >>> PAGE_BITS).cells,
+                index & PAGE_MASK, cell);
+    }
+
+    @Override
+    boolean compareAndSet(int index, byte expect, byte cell) {
+        return CELLS.compareAndSet(own(index >>> PAGE_BITS).cells,
+                index & PAGE_MASK, expect, cell);
+    }
+
+    @Override
+    void fill(byte cell) {
+        for (int page = 0; page < pages.length; ++page) {
+            Arrays.fill(own(page).cells, cell);
+        }
+    }
+
+    /**
+     * Returns copy sharing all pages. Pages are not changed afterwards,
+     * because their next change copies them first.
+     *
+     * @return copy of the cells
+     */
+    @Override
+    CellStore copy() {
+        final byte[][] shared = new byte[pages.length][];
+
+        for (int page = 0; page < pages.length; ++page) {
+            shared[page] = ((Page) PAGES.getAcquire(pages, page)).cells;
+        }
+        ++epoch;
+
+        return new ArrayCellStore(shared, size);
+    }
+
+    /**
+     * Returns page of the current epoch, copied from the page of an older
+     * epoch if needed.
+     *
+     * @param index index of the page
+     * @return page which can be changed
+     */
+    private Page own(int index) {
+        final long current = epoch;
+        Page page = (Page) PAGES.getAcquire(pages, index);
+
+        while (page.epoch != current) {
+            final Page copy = new Page(page.cells.clone(), current);
+            final Page witness =
+                    (Page) PAGES.compareAndExchange(pages, index, page, copy);
+
+            page = witness == page ? copy : witness;
+        }
+
+        return page;
+    }
+
+    /**
+     * Page of packed cells with the epoch in which it was created.
+     */
+    private static final class Page {
+
+        /**
+         * Packed cells.
+         */
+        private final byte[] cells;
+
+        /**
+         * Epoch in which the page was created.
+         */
+        private final long epoch;
+
+        /**
+         * Constructor.
+         *
+         * @param cells packed cells
+         * @param epoch epoch in which the page was created
+         */
+        private Page(byte[] cells, long epoch) {
+            this.cells = cells;
+            this.epoch = epoch;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package minesweeper.core;
+
+import java.io.IOException;
+
+/**
+ * Storage of packed field cells.
+ *
+ * Every cell is one byte which packs the clue value, the mine bit and
+ * the tile state of one tile. Cells are indexed in row-major order.
+ */
+abstract class CellStore {
+
+    /**
+     * Size of a page of cells shared by copies, as a power of two.
+     */
+    static final int PAGE_BITS = 12;
+
+    /**
+     * Mask of index inside of a page.
+     */
+    static final int PAGE_MASK = (1 << PAGE_BITS) - 1;
+
+    /**
+     * Returns count of cells.
+     *
+     * @return count of cells
+     */
+    abstract int size();
+
+    /**
+     * Returns packed cell at specified index.
+     *
+     * @param index index of the cell
+     * @return packed cell
+     */
+    abstract byte get(int index);
+
+    /**
+     * Sets packed cell at specified index.
+     *
+     * @param index index of the cell
+     * @param cell  packed cell
+     */
+    abstract void set(int index, byte cell);
+
+    /**
+     * Sets packed cell at specified index, if it still has the expected
+     * value. Storage which is not shared by threads compares and sets
+     * the cell in two steps.
+     *
+     * @param index  index of the cell
+     * @param expect expected packed cell
+     * @param cell   new packed cell
+     * @return true if the cell was set, false otherwise
+     */
+    boolean compareAndSet(int index, byte expect, byte cell) {
+        if (get(index) != expect) {
+            return false;
+        }
+
+        set(index, cell);
+        return true;
+    }
+
+    /**
+     * Sets all cells to the same value.
+     *
+     * @param cell packed cell
+     */
+    void fill(byte cell) {
+        for (int index = 0; index < size(); ++index) {
+            set(index, cell);
+        }
+    }
+
+    /**
+     * Returns copy of the cells on the heap. Copy and original change
+     * independently of each other. Must not be called while the cells
+     * are changed.
+     *
+     * @return copy of the cells
+     */
+    CellStore copy() {
+        CellStore copy = new ArrayCellStore(size());
+
+        for (int index = 0; index < size(); ++index) {
+            copy.set(index, get(index));
+        }
+
+        return copy;
+    }
+
+    /**
+     * Returns copy of the cells which is never changed. Must not be
+     * called while the cells are changed. Storage in memory returns its
+     * copy.
+     *
+     * @return unchangeable copy of the cells
+     */
+    CellStore snapshot() {
+        return copy();
+    }
+
+    /**
+     * Returns count of pages of specified count of cells.
+     *
+     * @param size count of cells
+     * @return count of pages
+     */
+    static int pageCount(int size) {
+        return ((size - 1) >>> PAGE_BITS) + 1;
+    }
+
+    /**
+     * Writes cells and the game summary to durable storage.
+     * Storage in memory does nothing.
+     *
+     * @param openCount   count of open tiles
+     * @param markedCount count of marked tiles
+     * @param state       state of game
+     * @throws IOException if cells can not be written
+     */
+    void close(int openCount, int markedCount, GameState state)
+            throws IOException {
+    }
+}
@@ -0,0 +1,614 @@
+package minesweeper.core;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * ChunkedField represents practically unbounded playing field.
+ *
+ * Field is divided into square chunks of tiles. Mines and clues of a chunk
+ * are generated from the seed only when the chunk is opened or looked at,
+ * so any chunk can be regenerated at any time. Only a bounded number of
+ * chunks is kept in memory. Least recently used chunks are evicted and
+ * only their tile states are kept, compressed to two bits per tile.
+ * Memory use is therefore proportional to the explored area.
+ */
+public class ChunkedField {
+
+    /**
+     * Chunk size as a power of two.
+     */
+    private static final int CHUNK_BITS = 6;
+
+    /**
+     * Row and column count of a chunk.
+     */
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    /**
+     * Mask of row or column inside of a chunk.
+     */
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /**
+     * Tile count of a chunk.
+     */
+    public static final int CHUNK_TILES = CHUNK_SIZE * CHUNK_SIZE;
+
+    /**
+     * Lowest row or column number.
+     */
+    public static final long MIN_COORDINATE = (long) Integer.MIN_VALUE << CHUNK_BITS;
+
+    /**
+     * Highest row or column number.
+     */
+    public static final long MAX_COORDINATE =
+            ((long) Integer.MAX_VALUE << CHUNK_BITS) | CHUNK_MASK;
+
+    /**
+     * Maximum count of tiles opened by one move. Zero region is opened
+     * further by opening any of its open tiles on its border again.
+     */
+    public static final int MAX_OPENED_PER_MOVE = 1 << 20;
+
+    /**
+     * Default count of chunks kept in memory.
+     */
+    private static final int DEFAULT_LOADED_CHUNKS = 256;
+
+    /**
+     * Mine count of every chunk.
+     */
+    private final int minesPerChunk;
+
+    /**
+     * Seed of the mine layout.
+     */
+    private final long seed;
+
+    /**
+     * Maximum count of chunks kept in memory between moves.
+     */
+    private final int maxLoadedChunks;
+
+    /**
+     * Loaded chunks of packed cells in access order.
+     */
+    private final LinkedHashMap<Long, byte[]> loadedChunks =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Compressed tile states of evicted explored chunks.
+     */
+    private final Map<Long, long[]> exploredChunks = new HashMap<>();
+
+    /**
+     * Key of the most recently used chunk.
+     */
+    private long cachedKey;
+
+    /**
+     * Most recently used chunk, or null.
+     */
+    private byte[] cachedChunk;
+
+    /**
+     * Count of open tiles.
+     */
+    private long openCount;
+
+    /**
+     * Count of marked tiles.
+     */
+    private long markedCount;
+
+    /**
+     * Game state.
+     */
+    private GameState state;
+
+    /**
+     * Constructor.
+     *
+     * @param minesPerChunk mine count of every chunk
+     * @param seed          seed of the mine layout
+     */
+    public ChunkedField(int minesPerChunk, long seed) {
+        this(minesPerChunk, seed, DEFAULT_LOADED_CHUNKS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param minesPerChunk   mine count of every chunk
+     * @param seed            seed of the mine layout
+     * @param maxLoadedChunks maximum count of chunks kept in memory
+     */
+    public ChunkedField(int minesPerChunk, long seed, int maxLoadedChunks) {
+        if (minesPerChunk < 0 || minesPerChunk > CHUNK_TILES) {
+            throw new IllegalArgumentException(
+                    "Mine count " + minesPerChunk + " does not fit into chunk");
+        }
+        if (maxLoadedChunks < 1) {
+            throw new IllegalArgumentException(
+                    "At least one chunk must be kept in memory");
+        }
+
+        this.minesPerChunk = minesPerChunk;
+        this.seed = seed;
+        this.maxLoadedChunks = maxLoadedChunks;
+
+        state = GameState.PLAYING;
+    }
+
+    /**
+     * Returns mine count of every chunk.
+     *
+     * @return mine count of every chunk
+     */
+    public int getMinesPerChunk() {
+        return minesPerChunk;
+    }
+
+    /**
+     * Returns seed of the mine layout.
+     *
+     * @return seed of the mine layout
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns state of game. Unbounded game is never solved.
+     *
+     * @return state of game
+     */
+    public GameState getState() {
+        return state;
+    }
+
+    /**
+     * Returns state of the tile at specified position.
+     *
+     * @param row    row number
+     * @param column column number
+     * @return state of the tile
+     */
+    public Tile.State getTileState(long row, long column) {
+        final byte cell = chunk(row, column)[offset(row, column)];
+        trim();
+
+        return Field.unpack(cell);
+    }
+
+    /**
+     * Returns true if the tile at specified position is a mine.
+     *
+     * @param row    row number
+     * @param column column number
+     * @return true if the tile is a mine, false otherwise
+     */
+    public boolean isMine(long row, long column) {
+        final byte cell = chunk(row, column)[offset(row, column)];
+        trim();
+
+        return (cell & Field.MINE_BIT) != 0;
+    }
+
+    /**
+     * Returns number of mines adjacent to the tile at specified position.
+     *
+     * @param row    row number
+     * @param column column number
+     * @return number of adjacent mines
+     */
+    public int getClueValue(long row, long column) {
+        final byte cell = chunk(row, column)[offset(row, column)];
+        trim();
+
+        return cell & Field.CLUE_MASK;
+    }
+
+    /**
+     * Returns number of open tiles.
+     *
+     * @return number of open tiles
+     */
+    public long getOpenCount() {
+        return openCount;
+    }
+
+    /**
+     * Returns number of marked tiles.
+     *
+     * @return number of marked tiles
+     */
+    public long getMarkedCount() {
+        return markedCount;
+    }
+
+    /**
+     * Returns number of chunks held in memory.
+     *
+     * @return number of loaded chunks
+     */
+    public int getLoadedChunkCount() {
+        return loadedChunks.size();
+    }
+
+    /**
+     * Returns number of explored chunks kept only as compressed states.
+     *
+     * @return number of evicted explored chunks
+     */
+    public int getEvictedChunkCount() {
+        return exploredChunks.size();
+    }
+
+    /**
+     * Opens tile at specified position.
+     * Opening a tile without adjacent mines opens its zero region,
+     * at most {@link #MAX_OPENED_PER_MOVE} tiles at once.
+     *
+     * @param row    row number
+     * @param column column number
+     */
+    public void openTile(long row, long column) {
+        byte[] chunk = chunk(row, column);
+        final int offset = offset(row, column);
+
+        if ((chunk[offset] & Field.STATE_MASK) == Field.CLOSED) {
+            setPackedState(chunk, offset, Field.OPEN);
+
+            if ((chunk[offset] & Field.MINE_BIT) != 0) {
+                state = GameState.FAILED;
+            }
+        }
+
+        if ((chunk[offset] & Field.STATE_MASK) == Field.OPEN &&
+                (chunk[offset] & (Field.MINE_BIT | Field.CLUE_MASK)) == 0) {
+            openZeroRegion(row, column);
+        }
+
+        trim();
+    }
+
+    /**
+     * Marks tile at specified position.
+     *
+     * @param row    row number
+     * @param column column number
+     */
+    public void markTile(long row, long column) {
+        byte[] chunk = chunk(row, column);
+        final int offset = offset(row, column);
+
+        if ((chunk[offset] & Field.STATE_MASK) == Field.CLOSED) {
+            setPackedState(chunk, offset, Field.MARKED);
+        }
+        else if ((chunk[offset] & Field.STATE_MASK) == Field.MARKED) {
+            setPackedState(chunk, offset, Field.CLOSED);
+        }
+
+        trim();
+    }
+
+    /**
+     * Opens the zero region around an open tile without adjacent mines.
+     * Region is opened breadth first, so a region cut by the limit stays
+     * compact around the opened tile and touches as few chunks as possible.
+     *
+     * @param row    row number of the open tile
+     * @param column column number of the open tile
+     */
+    private void openZeroRegion(long row, long column) {
+        long[] queue = new long[128];
+        int head = 0;
+        int size = 2;
+        int opened = 0;
+
+        queue[0] = row;
+        queue[1] = column;
+
+        while (size > 0 && opened < MAX_OPENED_PER_MOVE) {
+            final long currentRow = queue[head];
+            final long currentColumn = queue[head + 1];
+            head = (head + 2) & (queue.length - 1);
+            size -= 2;
+
+            for (long actRow = currentRow - 1; actRow <= currentRow + 1; ++actRow) {
+                for (long actColumn = currentColumn - 1;
+                     actColumn <= currentColumn + 1; ++actColumn) {
+                    if (!inBounds(actRow) || !inBounds(actColumn)) {
+                        continue;
+                    }
+
+                    byte[] chunk = chunk(actRow, actColumn);
+                    final int offset = offset(actRow, actColumn);
+
+                    if ((chunk[offset] & Field.STATE_MASK) == Field.CLOSED) {
+                        setPackedState(chunk, offset, Field.OPEN);
+                        ++opened;
+
+                        if ((chunk[offset] & Field.CLUE_MASK) == 0) {
+                            if (size == queue.length) {
+                                long[] grown = new long[queue.length * 2];
+                                for (int i = 0; i < size; ++i) {
+                                    grown[i] = queue[(head + i) & (queue.length - 1)];
+                                }
+                                queue = grown;
+                                head = 0;
+                            }
+
+                            final int tail = (head + size) & (queue.length - 1);
+                            queue[tail] = actRow;
+                            queue[tail + 1] = actColumn;
+                            size += 2;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets packed state of a cell and updates counters.
+     *
+     * @param chunk       chunk of the cell
+     * @param offset      offset of the cell in the chunk
+     * @param packedState new packed state
+     */
+    private void setPackedState(byte[] chunk, int offset, int packedState) {
+        final int oldState = chunk[offset] & Field.STATE_MASK;
+
+        if (oldState == Field.OPEN) {
+            --openCount;
+        }
+        else if (oldState == Field.MARKED) {
+            --markedCount;
+        }
+
+        if (packedState == Field.OPEN) {
+            ++openCount;
+        }
+        else if (packedState == Field.MARKED) {
+            ++markedCount;
+        }
+
+        chunk[offset] = (byte) ((chunk[offset] & ~Field.STATE_MASK) | packedState);
+    }
+
+    /**
+     * Returns chunk which contains the tile at specified position.
+     * Chunk is loaded or generated if it is not in memory.
+     *
+     * @param row    row number
+     * @param column column number
+     * @return chunk of packed cells
+     */
+    private byte[] chunk(long row, long column) {
+        if (!inBounds(row) || !inBounds(column)) {
+            throw new IndexOutOfBoundsException(
+                    "Tile [" + row + ", " + column + "] is out of field");
+        }
+
+        final long key = chunkKey((int) (row >> CHUNK_BITS),
+                (int) (column >> CHUNK_BITS));
+
+        if (cachedChunk != null && cachedKey == key) {
+            return cachedChunk;
+        }
+
+        byte[] chunk = loadedChunks.get(key);
+        if (chunk == null) {
+            chunk = createChunk(key);
+            loadedChunks.put(key, chunk);
+        }
+
+        cachedKey = key;
+        cachedChunk = chunk;
+
+        return chunk;
+    }
+
+    /**
+     * Generates mines and clues of a chunk and restores its tile states
+     * if the chunk was explored before.
+     *
+     * @param key key of the chunk
+     * @return chunk of packed cells
+     */
+    private byte[] createChunk(long key) {
+        final int chunkRow = (int) (key >> 32);
+        final int chunkColumn = (int) key;
+
+        long[][] mines = new long[9][];
+        for (int i = 0; i < 9; ++i) {
+            mines[i] = generateMines(
+                    (long) chunkRow + i / 3 - 1,
+                    (long) chunkColumn + i % 3 - 1);
+        }
+
+        byte[] chunk = new byte[CHUNK_TILES];
+        for (int row = 0; row < CHUNK_SIZE; ++row) {
+            for (int column = 0; column < CHUNK_SIZE; ++column) {
+                if (isMine(mines, row, column)) {
+                    chunk[row * CHUNK_SIZE + column] = Field.MINE_BIT;
+                    continue;
+                }
+
+                int count = 0;
+                for (int actRow = row - 1; actRow <= row + 1; ++actRow) {
+                    for (int actColumn = column - 1;
+                         actColumn <= column + 1; ++actColumn) {
+                        if (isMine(mines, actRow, actColumn)) {
+                            ++count;
+                        }
+                    }
+                }
+                chunk[row * CHUNK_SIZE + column] = (byte) count;
+            }
+        }
+
+        long[] states = exploredChunks.remove(key);
+        if (states != null) {
+            for (int offset = 0; offset < CHUNK_TILES; ++offset) {
+                if ((states[offset >>> 6] & (1L << offset)) != 0) {
+                    chunk[offset] |= Field.OPEN;
+                }
+                else if ((states[CHUNK_TILES / 64 + (offset >>> 6)] &
+                        (1L << offset)) != 0) {
+                    chunk[offset] |= Field.MARKED;
+                }
+            }
+        }
+
+        return chunk;
+    }
+
+    /**
+     * Returns mine bitmap of a chunk. Chunks out of field have no mines.
+     *
+     * @param chunkRow    row number of the chunk
+     * @param chunkColumn column number of the chunk
+     * @return mine bitmap of the chunk
+     */
+    private long[] generateMines(long chunkRow, long chunkColumn) {
+        long[] mines = new long[CHUNK_TILES / 64];
+
+        if (chunkRow != (int) chunkRow || chunkColumn != (int) chunkColumn) {
+            return mines;
+        }
+
+        SplittableRandom rand = new SplittableRandom(
+                seed ^ (chunkKey((int) chunkRow, (int) chunkColumn) *
+                        0x9E3779B97F4A7C15L));
+
+        for (int last = CHUNK_TILES - minesPerChunk; last < CHUNK_TILES; ++last) {
+            int index = rand.nextInt(last + 1);
+
+            if ((mines[index >>> 6] & (1L << index)) != 0) {
+                index = last;
+            }
+
+            mines[index >>> 6] |= 1L << index;
+        }
+
+        return mines;
+    }
+
+    /**
+     * Returns true if there is a mine at specified position relative to
+     * the centre chunk of 3x3 chunk mine bitmaps.
+     *
+     * @param mines  mine bitmaps of the chunk and its neighbours
+     * @param row    row number relative to the centre chunk
+     * @param column column number relative to the centre chunk
+     * @return true if there is a mine, false otherwise
+     */
+    private static boolean isMine(long[][] mines, int row, int column) {
+        final int chunk = ((row >> CHUNK_BITS) + 1) * 3 + (column >> CHUNK_BITS) + 1;
+        final int offset = ((row & CHUNK_MASK) << CHUNK_BITS) | (column & CHUNK_MASK);
+
+        return (mines[chunk][offset >>> 6] & (1L << offset)) != 0;
+    }
+
+    /**
+     * Evicts least recently used chunks above the limit. Chunks with
+     * open or marked tiles keep their states in compressed form.
+     * Loaded chunks are counted only when a chunk is created, so reads of
+     * loaded chunks return at once and keep the most recently used chunk.
+     */
+    private void trim() {
+        if (loadedChunks.size() <= maxLoadedChunks) {
+            return;
+        }
+
+        // Hits of the most recently used chunk do not touch the map.
+        if (cachedChunk != null) {
+            loadedChunks.get(cachedKey);
+        }
+
+        Iterator<Map.Entry<Long, byte[]>> iterator =
+                loadedChunks.entrySet().iterator();
+
+        while (loadedChunks.size() > maxLoadedChunks) {
+            Map.Entry<Long, byte[]> eldest = iterator.next();
+            long[] states = compressStates(eldest.getValue());
+
+            if (states != null) {
+                exploredChunks.put(eldest.getKey(), states);
+            }
+
+            iterator.remove();
+        }
+
+        if (!loadedChunks.containsKey(cachedKey)) {
+            cachedChunk = null;
+        }
+    }
+
+    /**
+     * Returns open and marked tile bitmaps of a chunk, or null if all
+     * tiles of the chunk are closed.
+     *
+     * @param chunk chunk of packed cells
+     * @return open bitmap followed by marked bitmap, or null
+     */
+    private static long[] compressStates(byte[] chunk) {
+        long[] states = null;
+
+        for (int offset = 0; offset < CHUNK_TILES; ++offset) {
+            final int packedState = chunk[offset] & Field.STATE_MASK;
+
+            if (packedState != Field.CLOSED) {
+                if (states == null) {
+                    states = new long[2 * CHUNK_TILES / 64];
+                }
+
+                final int word = packedState == Field.OPEN ?
+                        offset >>> 6 : CHUNK_TILES / 64 + (offset >>> 6);
+                states[word] |= 1L << offset;
+            }
+        }
+
+        return states;
+    }
+
+    /**
+     * Returns true if row or column number is inside of the field.
+     *
+     * @param coordinate row or column number
+     * @return true if inside of the field, false otherwise
+     */
+    private static boolean inBounds(long coordinate) {
+        return coordinate >= MIN_COORDINATE && coordinate <= MAX_COORDINATE;
+    }
+
+    /**
+     * Returns key of a chunk.
+     *
+     * @param chunkRow    row number of the chunk
+     * @param chunkColumn column number of the chunk
+     * @return key of the chunk
+     */
+    private static long chunkKey(int chunkRow, int chunkColumn) {
+        return ((long) chunkRow << 32) | (chunkColumn & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns offset of a tile inside of its chunk.
+     *
+     * @param row    row number
+     * @param column column number
+     * @return offset of the tile
+     */
+    private static int offset(long row, long column) {
+        return (int) (((row & CHUNK_MASK) << CHUNK_BITS) | (column & CHUNK_MASK));
+    }
+}
@@ -0,0 +1,74 @@
+package minesweeper.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ChunkedFieldTest {
+
+    static final int MINES_PER_CHUNK = 600;
+
+    @Test
+    public void cluesAcrossChunkBorders() {
+        ChunkedField field = new ChunkedField(MINES_PER_CHUNK, 1, 4);
+
+        for (long row = -70; row < 70; ++row) {
+            for (long column = -70; column < 70; ++column) {
+                if (field.isMine(row, column)) {
+                    continue;
+                }
+
+                int count = 0;
+                for (long actRow = row - 1; actRow <= row + 1; ++actRow) {
+                    for (long actColumn = column - 1;
+                         actColumn <= column + 1; ++actColumn) {
+                        if (field.isMine(actRow, actColumn)) {
+                            ++count;
+                        }
+                    }
+                }
+
+                assertEquals(count, field.getClueValue(row, column));
+            }
+        }
+    }
+
+    @Test
+    public void statesSurviveEviction() {
+        ChunkedField field = new ChunkedField(MINES_PER_CHUNK, 2, 1);
+        ChunkedField other = new ChunkedField(MINES_PER_CHUNK, 2, 1);
+        long far = 1L << 36;
+
+        field.markTile(far, -far);
+        for (long column = 0; column < 1000; column += 10) {
+            if (!field.isMine(0, column)) {
+                field.openTile(0, column);
+            }
+        }
+
+        assertEquals(1, field.getLoadedChunkCount());
+        assertTrue(field.getEvictedChunkCount() > 0);
+        assertEquals(Tile.State.MARKED, field.getTileState(far, -far));
+        assertEquals(1, field.getMarkedCount());
+        assertEquals(GameState.PLAYING, field.getState());
+
+        for (long column = 0; column < 1000; ++column) {
+            assertEquals(other.isMine(0, column), field.isMine(0, column));
+            if (column % 10 == 0 && !field.isMine(0, column)) {
+                assertEquals(Tile.State.OPEN, field.getTileState(0, column));
+            }
+        }
+        assertTrue(field.getOpenCount() >= 90);
+    }
+
+    @Test
+    public void zeroRegionIsBounded() {
+        ChunkedField field = new ChunkedField(0, 3);
+
+        field.openTile(0, 0);
+
+        assertTrue(field.getOpenCount() >= ChunkedField.MAX_OPENED_PER_MOVE);
+        assertTrue(field.getOpenCount() < 2 * ChunkedField.MAX_OPENED_PER_MOVE);
+        assertEquals(GameState.PLAYING, field.getState());
+    }
+}
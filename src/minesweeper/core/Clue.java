@@ -5,17 +5,14 @@ package minesweeper.core;
  */
 public class Clue  extends Tile {
 
-    /**
-     * Value of the clue.
-     */
-    private final int value;
-    
     /**
      * Constructor.
-     * @param value  value of the clue
+     *
+     * @param field field which owns the clue
+     * @param index index of the clue in the field
      */
-    public Clue(int value) {
-        this.value = value;
+    Clue(Field field, int index) {
+        super(field, index);
     }
 
     /**
@@ -24,6 +21,6 @@ public class Clue  extends Tile {
      * @return value of the clue
      */
     public int getValue() {
-        return value;
+        return getField().getClueValue(getIndex());
     }
 }
@@ -0,0 +1,151 @@
+package minesweeper.core;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fills packed field cells with clue values.
+ *
+ * Field is split into bands of rows which are filled in parallel.
+ * Each band counts adjacent mines with a sliding window over column sums,
+ * so every mine is read three times instead of nine.
+ * Band writes only clue bits of its own rows and reads only mine bits,
+ * which no band changes.
+ */
+class ClueFiller extends RecursiveAction {
+
+    /**
+     * Version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Maximum count of cells filled by one task without splitting.
+     */
+    private static final int BAND_CELLS = 1 << 16;
+
+    /**
+     * Packed field cells.
+     */
+    private final CellStore cells;
+
+    /**
+     * Column count of the field.
+     */
+    private final int columnCount;
+
+    /**
+     * First row of the band.
+     */
+    private final int fromRow;
+
+    /**
+     * Row after the last row of the band.
+     */
+    private final int toRow;
+
+    /**
+     * Constructor.
+     *
+     * @param cells       packed field cells
+     * @param columnCount column count of the field
+     * @param fromRow     first row of the band
+     * @param toRow       row after the last row of the band
+     */
+    private ClueFiller(CellStore cells, int columnCount, int fromRow, int toRow) {
+        this.cells = cells;
+        this.columnCount = columnCount;
+        this.fromRow = fromRow;
+        this.toRow = toRow;
+    }
+
+    /**
+     * Fills all cells of the field with clue values. Large fields are
+     * filled in parallel on the common fork-join pool, small fields
+     * on the calling thread. Result is the same in both cases.
+     *
+     * @param cells       packed field cells
+     * @param rowCount    row count of the field
+     * @param columnCount column count of the field
+     */
+    static void fill(CellStore cells, int rowCount, int columnCount) {
+        ClueFiller filler = new ClueFiller(cells, columnCount, 0, rowCount);
+
+        if (cells.size() <= BAND_CELLS) {
+            filler.fillBand();
+        }
+        else {
+            ForkJoinPool.commonPool().invoke(filler);
+        }
+    }
+
+    /**
+     * Fills the band, or splits it in half if it is too large.
+     */
+    @Override
+    protected void compute() {
+        final int rows = toRow - fromRow;
+
+        if (rows < 2 || (long) rows * columnCount <= BAND_CELLS) {
+            fillBand();
+        }
+        else {
+            final int middleRow = fromRow + rows / 2;
+
+            invokeAll(
+                    new ClueFiller(cells, columnCount, fromRow, middleRow),
+                    new ClueFiller(cells, columnCount, middleRow, toRow));
+        }
+    }
+
+    /**
+     * Fills the band on the current thread.
+     */
+    private void fillBand() {
+        final int rowCount = cells.size() / columnCount;
+        final int[] columnSums = new int[columnCount + 2];
+
+        for (int row = fromRow; row < toRow; ++row) {
+            for (int column = 0; column < columnCount; ++column) {
+                int sum = mine(row, column);
+
+                if (row > 0) {
+                    sum += mine(row - 1, column);
+                }
+                if (row < rowCount - 1) {
+                    sum += mine(row + 1, column);
+                }
+
+                columnSums[column + 1] = sum;
+            }
+
+            int window = columnSums[0] + columnSums[1];
+            final int rowStart = row * columnCount;
+
+            for (int column = 0; column < columnCount; ++column) {
+                window += columnSums[column + 2];
+
+                final int index = rowStart + column;
+                final byte cell = cells.get(index);
+                if ((cell & Field.MINE_BIT) == 0) {
+                    cells.set(index, (byte) ((cell & ~Field.CLUE_MASK) | window));
+                }
+
+                window -= columnSums[column];
+            }
+        }
+    }
+
+    /**
+     * Returns 1 if the cell contains a mine, 0 otherwise.
+     *
+     * @param row    row number
+     * @param column column number
+     * @return 1 for a mine, 0 otherwise
+     */
+    private int mine(int row, int column) {
+        final int cell = cells.get(row * columnCount + column);
+
+        return (cell & Field.MINE_BIT) != 0 ? 1 : 0;
+    }
+}
@@ -1,16 +1,75 @@
 package minesweeper.core;
 
-import java.util.Random;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.LongStream;
 
 /**
  * Field represents playing field and game logic.
+ *
+ * Field is meant to be used by one thread, unless it is created by
+ * {@link #createConcurrent}. Concurrent field changes tile states by
+ * compare-and-set on the packed cells, so moves of many threads never
+ * lock each other and every tile changes its state exactly once. Moves
+ * are not atomic with respect to each other: zero regions opened at the
+ * same time are opened together, each tile by one of the moves.
  */
-public class Field {
+public class Field implements Closeable {
 
     /**
-     * Playing field tiles.
+     * Bits of a cell which hold the clue value.
      */
-    private final Tile[][] tiles;
+    static final int CLUE_MASK = 0x0F;
+
+    /**
+     * Bit of a cell which is set if the cell contains a mine.
+     */
+    static final int MINE_BIT = 0x10;
+
+    /**
+     * Bits of a cell which hold the tile state.
+     */
+    static final int STATE_MASK = 0x60;
+
+    /**
+     * Packed closed tile state.
+     */
+    static final int CLOSED = 0x00;
+
+    /**
+     * Packed open tile state.
+     */
+    static final int OPEN = 0x20;
+
+    /**
+     * Packed marked tile state.
+     */
+    static final int MARKED = 0x40;
+
+    /**
+     * Count of lock stripes of a concurrent field, a power of two.
+     */
+    private static final int LOCK_STRIPES = 16;
+
+    /**
+     * Playing field cells, one byte per tile in row-major order.
+     * Each byte packs the clue value, the mine bit and the tile state.
+     */
+    private final CellStore cells;
 
     /**
      * Field row count. Rows are indexed from 0 to (rowCount - 1).
@@ -28,26 +87,381 @@ public class Field {
     private final int mineCount;
 
     /**
-     * Game state.
+     * Seed of the mine layout.
+     */
+    private final long seed;
+
+    /**
+     * Game state. Game ends by exactly one successful compare-and-set.
      */
-    private GameState state;
+    private final AtomicReference<GameState> state =
+            new AtomicReference<>(GameState.PLAYING);
 
     /**
-     * Constructor.
+     * Count of open tiles, updated at the end of every move.
+     */
+    private final AtomicInteger openCount = new AtomicInteger();
+
+    /**
+     * Count of marked tiles, updated at the end of every move.
+     */
+    private final AtomicInteger markedCount = new AtomicInteger();
+
+    /**
+     * Field listeners.
+     */
+    private final List<IFieldListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Journal of moves, null if undo is disabled.
+     */
+    private MoveJournal journal;
+
+    /**
+     * True after the field is closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Lock stripes of concurrent field. Move holds the read lock of the
+     * stripe of its thread, so moves of different threads do not share
+     * a lock. Copy holds write locks of all stripes, so it waits for
+     * moves in progress and never contains a part of a move. Null if
+     * field is not concurrent.
+     */
+    private final ReadWriteLock[] locks;
+
+    /**
+     * Lock of a field which is not concurrent. Moves of the playing thread
+     * hold its write lock, which they never wait for. Copy made by another
+     * thread reads optimistically and is repeated if a move overlapped it,
+     * so the playing thread never waits for a copy. Null if field is
+     * concurrent.
+     */
+    private final StampedLock moveLock;
+
+    /**
+     * True if the field is a snapshot which rejects moves.
+     */
+    private final boolean readOnly;
+
+    /**
+     * Constructor. Mines are placed according to a random seed.
      *
      * @param rowCount    row count
      * @param columnCount column count
      * @param mineCount   mine count
      */
     public Field(int rowCount, int columnCount, int mineCount) {
+        this(rowCount, columnCount, mineCount,
+                ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Constructor. Fields created with the same dimensions, mine count
+     * and seed always have the same mines.
+     *
+     * @param rowCount    row count
+     * @param columnCount column count
+     * @param mineCount   mine count
+     * @param seed        seed of the mine layout
+     */
+    public Field(int rowCount, int columnCount, int mineCount, long seed) {
+        this(rowCount, columnCount, mineCount, seed,
+                new ArrayCellStore(cellCount(rowCount, columnCount)), false,
+                false);
+
+        generatePlayingField();
+    }
+
+    /**
+     * Constructor of the field with a safe start. No mine is placed on
+     * the start tile and its neighbours, so the start tile is a zero clue.
+     * If the field is too dense for that, only the start tile is kept
+     * free of mines. Fields created with the same dimensions, mine count,
+     * seed and start tile always have the same mines.
+     *
+     * @param rowCount    row count
+     * @param columnCount column count
+     * @param mineCount   mine count
+     * @param seed        seed of the mine layout
+     * @param startRow    row of the start tile
+     * @param startColumn column of the start tile
+     */
+    public Field(int rowCount, int columnCount, int mineCount, long seed,
+                 int startRow, int startColumn) {
+        this(rowCount, columnCount, mineCount, seed,
+                new ArrayCellStore(cellCount(rowCount, columnCount)), false,
+                false);
+
+        final int[] safeTiles = safeTiles(indexOf(startRow, startColumn));
+        if (mineCount > cells.size() - safeTiles.length) {
+            throw new IllegalArgumentException(
+                    "Mine count " + mineCount + " does not fit into field");
+        }
+
+        generateMines(safeTiles);
+        fillWithClues();
+    }
+
+    /**
+     * Constructor of the field stored in specified cells.
+     *
+     * @param rowCount    row count
+     * @param columnCount column count
+     * @param mineCount   mine count
+     * @param seed        seed of the mine layout
+     * @param cells       storage of cells
+     * @param concurrent  true if field is played by many threads
+     * @param readOnly    true if field is a snapshot which rejects moves
+     */
+    private Field(int rowCount, int columnCount, int mineCount, long seed,
+                  CellStore cells, boolean concurrent, boolean readOnly) {
         this.rowCount = rowCount;
         this.columnCount = columnCount;
         this.mineCount = mineCount;
+        this.seed = seed;
+        this.cells = cells;
+        this.readOnly = readOnly;
 
-        tiles = new Tile[rowCount][columnCount];
+        checkMineCount(mineCount, cells.size());
 
-        generatePlayingField();
-        state = GameState.PLAYING;
+        if (concurrent) {
+            locks = new ReadWriteLock[LOCK_STRIPES];
+            for (int i = 0; i < locks.length; ++i) {
+                locks[i] = new ReentrantReadWriteLock();
+            }
+            moveLock = null;
+        }
+        else {
+            locks = null;
+            moveLock = new StampedLock();
+        }
+    }
+
+    /**
+     * Creates new field which can be played by many threads at once.
+     * Moves of different threads run in parallel. Tiles opened by one
+     * zero region are opened exactly once even if several threads open
+     * the region at the same time, and the game ends exactly once.
+     * Overlapping zero regions opened at the same time are not atomic
+     * with respect to each other: their tiles are divided between the
+     * moves, every tile is reported by the move which opened it, and
+     * the whole region is open when both moves end.
+     *
+     * @param rowCount    row count
+     * @param columnCount column count
+     * @param mineCount   mine count
+     * @param seed        seed of the mine layout
+     * @return concurrent field
+     */
+    public static Field createConcurrent(int rowCount, int columnCount,
+                                         int mineCount, long seed) {
+        Field field = new Field(rowCount, columnCount, mineCount, seed,
+                new AtomicCellStore(cellCount(rowCount, columnCount)), true,
+                false);
+        field.generatePlayingField();
+
+        return field;
+    }
+
+    /**
+     * Returns true if field can be played by many threads at once.
+     *
+     * @return true if field is concurrent
+     */
+    public boolean isConcurrent() {
+        return locks != null;
+    }
+
+    /**
+     * Creates new field stored in a memory-mapped file. File is written
+     * next to the target path first and moved to it once it is complete,
+     * so the target never holds a partially generated field.
+     *
+     * @param file        path of the file
+     * @param rowCount    row count
+     * @param columnCount column count
+     * @param mineCount   mine count
+     * @param seed        seed of the mine layout
+     * @return field stored in the file
+     * @throws IOException if the file can not be written
+     */
+    public static Field createMapped(Path file, int rowCount, int columnCount,
+                                     int mineCount, long seed)
+            throws IOException {
+        final Path temporaryFile =
+                file.resolveSibling(file.getFileName() + ".tmp");
+
+        // Validates the field before the file is created.
+        checkMineCount(mineCount, cellCount(rowCount, columnCount));
+
+        try (Field field = new Field(rowCount, columnCount, mineCount, seed,
+                MappedCellStore.create(temporaryFile,
+                        rowCount, columnCount, mineCount, seed),
+                false, false)) {
+            field.generatePlayingField();
+        }
+        catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporaryFile);
+            throw e;
+        }
+
+        Files.move(temporaryFile, file,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+
+        return openMapped(file);
+    }
+
+    /**
+     * Opens field stored in a memory-mapped file. Game continues where it
+     * was left. Counters are recomputed if the file was not closed cleanly.
+     *
+     * @param file path of the file
+     * @return field stored in the file
+     * @throws IOException if the file can not be opened or is not valid
+     */
+    public static Field openMapped(Path file) throws IOException {
+        MappedCellStore cells = MappedCellStore.open(file);
+        Field field = new Field(cells.getRowCount(), cells.getColumnCount(),
+                cells.getMineCount(), cells.getSeed(), cells, false, false);
+
+        if (cells.isClean()) {
+            field.openCount.set(cells.getOpenCount());
+            field.markedCount.set(cells.getMarkedCount());
+            field.state.set(cells.getGameState());
+        }
+        else {
+            field.recount();
+        }
+
+        cells.markDirty();
+
+        return field;
+    }
+
+    /**
+     * Creates field from restored cells with mine bits and tile states.
+     * Clues, counters and game state are computed from the cells.
+     *
+     * @param rowCount    row count
+     * @param columnCount column count
+     * @param mineCount   mine count
+     * @param seed        seed of the mine layout
+     * @param cells       cells with mine bits and tile states
+     * @return restored field
+     */
+    static Field restore(int rowCount, int columnCount, int mineCount,
+                         long seed, CellStore cells) {
+        Field field = new Field(rowCount, columnCount, mineCount, seed,
+                cells, false, false);
+        field.fillWithClues();
+        field.recount();
+
+        return field;
+    }
+
+    /**
+     * Returns copy of the field with the same tiles and game state, which
+     * can be played independently, e.g. to try a move in a search.
+     * Copy shares unchanged tiles with this field, so it is cheap to make
+     * even for a large field. Listeners and undo history are not copied.
+     * Field stored in a file is copied to the heap. Copy of a concurrent
+     * field is not concurrent.
+     *
+     * @return copy of the field
+     */
+    public Field copy() {
+        return copy(false);
+    }
+
+    /**
+     * Returns read-only snapshot of the field, which never changes and
+     * rejects moves with {@link IllegalStateException}. Snapshot shares
+     * unchanged tiles with this field, so it is cheap to make even for
+     * a large field or one stored in a file. Snapshot can be made and
+     * read by any thread while the field is played. Playing thread never
+     * waits for it; snapshot of a concurrent field waits for the moves in
+     * progress. Snapshot never contains a part of a move.
+     *
+     * @return snapshot of the field
+     */
+    public Field snapshot() {
+        return readOnly ? this : copy(true);
+    }
+
+    /**
+     * Returns copy or snapshot of the field made between moves.
+     *
+     * @param snapshot true for a read-only snapshot
+     * @return copy of the field
+     */
+    private Field copy(boolean snapshot) {
+        if (locks != null) {
+            for (ReadWriteLock stripe : locks) {
+                stripe.writeLock().lock();
+            }
+
+            try {
+                return copyOf(snapshot);
+            }
+            finally {
+                for (int i = locks.length - 1; i >= 0; --i) {
+                    locks[i].writeLock().unlock();
+                }
+            }
+        }
+
+        while (true) {
+            final long stamp = moveLock.tryOptimisticRead();
+
+            if (stamp != 0) {
+                final Field copy = copyOf(snapshot);
+
+                if (moveLock.validate(stamp)) {
+                    return copy;
+                }
+            }
+
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Returns copy or snapshot of the cells, counters and game state.
+     * No move may change them meanwhile.
+     *
+     * @param snapshot true for a read-only snapshot
+     * @return copy of the field
+     */
+    private Field copyOf(boolean snapshot) {
+        final Field copy = new Field(rowCount, columnCount, mineCount, seed,
+                snapshot ? cells.snapshot() : cells.copy(), false, snapshot);
+
+        copy.openCount.set(openCount.get());
+        copy.markedCount.set(markedCount.get());
+        copy.state.set(state.get());
+
+        return copy;
+    }
+
+    /**
+     * Writes the field to its storage and releases it. Closed field
+     * rejects moves with {@link IllegalStateException}. Field stored in
+     * a file is unmapped, so its tiles can not be read either. Closing
+     * a closed field does nothing.
+     *
+     * @throws IOException if the field can not be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        cells.close(openCount.get(), markedCount.get(), state.get());
     }
 
     /**
@@ -58,7 +472,13 @@ public class Field {
      * @return chosen tile
      */
     public Tile getTile(int row, int column) {
-        return tiles[row][column];
+        final int index = indexOf(row, column);
+
+        if (isMine(index)) {
+            return new Mine(this, index);
+        }
+
+        return new Clue(this, index);
     }
 
     /**
@@ -88,57 +508,283 @@ public class Field {
         return mineCount;
     }
 
+    /**
+     * Returns seed of the mine layout.
+     *
+     * @return seed of the mine layout
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns reproducible stream of independent seeds derived from
+     * the master seed. Every seed depends only on the master seed and its
+     * position in the stream, so fields can be generated from a parallel
+     * stream and still get the same seeds as from a sequential one.
+     *
+     * @param masterSeed master seed
+     * @return stream of seeds
+     */
+    public static LongStream seeds(long masterSeed) {
+        return LongStream.range(0, Long.MAX_VALUE)
+                .map(index -> seedOf(masterSeed, index));
+    }
+
+    /**
+     * Returns seed at the position of the stream of the master seed.
+     * Position is scrambled the way {@link SplittableRandom} scrambles
+     * its state, so neighbouring seeds are not similar.
+     *
+     * @param masterSeed master seed
+     * @param index      position of the seed
+     * @return seed
+     */
+    private static long seedOf(long masterSeed, long index) {
+        long seed = masterSeed + (index + 1) * 0x9E3779B97F4A7C15L;
+
+        seed = (seed ^ (seed >>> 30)) * 0xBF58476D1CE4E5B9L;
+        seed = (seed ^ (seed >>> 27)) * 0x94D049BB133111EBL;
+        return seed ^ (seed >>> 31);
+    }
+
     /**
      * Returns state of game.
      *
      * @return state of game
      */
     public GameState getState() {
-        return state;
+        return state.get();
     }
 
     /**
      * Opens tile at specified indexes.
-     * Recursion.
+     * Opening a tile without adjacent mines opens its whole zero region.
      *
      * @param row    row number
      * @param column column number
      */
     public void openTile(int row, int column) {
-        final Tile tile = tiles[row][column];
+        final int index = indexOf(row, column);
+        final MoveRecord record = beginMove(journal);
 
-        if (tile.getState() == Tile.State.CLOSED) {
-            tile.setState(Tile.State.OPEN);
+        try {
+            open(index, record);
+        }
+        finally {
+            endMove(record);
+        }
+    }
 
-            if (tile instanceof Mine) {
-                state = GameState.FAILED;
-                return;
+    /**
+     * Marks tile at specified indexes.
+     *
+     * @param row    row number
+     * @param column column number
+     */
+    public void markTile(int row, int column) {
+        final int index = indexOf(row, column);
+        final MoveRecord record = beginMove(journal);
+
+        try {
+            mark(index, record);
+        }
+        finally {
+            endMove(record);
+        }
+    }
+
+    /**
+     * Opens all closed tiles adjacent to an open clue at specified
+     * indexes, if the clue has as many marked adjacent tiles as is
+     * its value. Otherwise does nothing.
+     *
+     * @param row    row number
+     * @param column column number
+     */
+    public void chordTile(int row, int column) {
+        final int index = indexOf(row, column);
+        final MoveRecord record = beginMove(journal);
+
+        try {
+            chord(index, record);
+        }
+        finally {
+            endMove(record);
+        }
+    }
+
+    /**
+     * Applies moves in given order as one move. Game state is checked
+     * and listeners are notified only once, after all moves. Moves after
+     * the one which ends the game are ignored. If any move is out of
+     * field, no move is applied.
+     *
+     * @param moves moves to apply
+     */
+    public void applyMoves(List<Move> moves) {
+        final int[] indexes = new int[moves.size()];
+
+        for (int i = 0; i < indexes.length; ++i) {
+            indexes[i] = indexOf(moves.get(i).getRow(),
+                    moves.get(i).getColumn());
+        }
+
+        final MoveRecord record = beginMove(journal);
+
+        try {
+            for (int i = 0; i < indexes.length &&
+                    state.get() == GameState.PLAYING; ++i) {
+                switch (moves.get(i).getType()) {
+                    case OPEN:
+                        open(indexes[i], record);
+                        break;
+
+                    case MARK:
+                        mark(indexes[i], record);
+                        break;
+
+                    case CHORD:
+                        chord(indexes[i], record);
+                        break;
+                }
             }
+        }
+        finally {
+            endMove(record);
+        }
+    }
+
+    /**
+     * Enables or disables undo of moves. Field records changed tiles of
+     * every move while undo is enabled. Disabling undo discards all
+     * recorded moves. Undo of a concurrent field is not supported.
+     *
+     * @param enabled true to enable undo
+     * @throws IllegalStateException if undo is enabled on concurrent field
+     */
+    public void setUndoEnabled(boolean enabled) {
+        if (enabled && locks != null) {
+            throw new IllegalStateException(
+                    "Concurrent field can not undo moves");
+        }
+
+        if (!enabled) {
+            journal = null;
+        }
+        else if (journal == null) {
+            journal = new MoveJournal();
+        }
+    }
+
+    /**
+     * Returns true if undo of moves is enabled.
+     *
+     * @return true if undo is enabled
+     */
+    public boolean isUndoEnabled() {
+        return journal != null;
+    }
+
+    /**
+     * Returns true if there is a move to undo.
+     *
+     * @return true if there is a move to undo
+     */
+    public boolean canUndo() {
+        return journal != null && journal.canUndo();
+    }
+
+    /**
+     * Returns true if there is an undone move to redo.
+     *
+     * @return true if there is a move to redo
+     */
+    public boolean canRedo() {
+        return journal != null && journal.canRedo();
+    }
+
+    /**
+     * Undoes the last move. Tiles changed by the move get their previous
+     * states back and game ended by the move continues. Listeners are
+     * notified as after any other move.
+     *
+     * @return true if a move was undone, false if there is no move to undo
+     */
+    public boolean undo() {
+        if (!canUndo()) {
+            return false;
+        }
+
+        final MoveRecord record = beginMove(null);
 
-            else if (countAdjacentMines(row, column) == 0) {
-                openAdjacentTiles(row, column);
+        try {
+            final int move = journal.undo();
+
+            if (journal.getEndState(move) != null) {
+                record.previousState = state.getAndSet(GameState.PLAYING);
             }
 
-            if (isSolved()) {
-                state = GameState.SOLVED;
+            for (int i = journal.getEnd(move) - 1;
+                 i >= journal.getStart(move); --i) {
+                transition(journal.getIndex(i), journal.getTo(i),
+                        journal.getFrom(i), record);
             }
         }
+        finally {
+            endMove(record);
+        }
+
+        return true;
     }
 
     /**
-     * Marks tile at specified indexes.
+     * Redoes the last undone move.
      *
-     * @param row    row number
-     * @param column column number
+     * @return true if a move was redone, false if there is no move to redo
      */
-    public void markTile(int row, int column) {
-        final Tile tile = tiles[row][column];
+    public boolean redo() {
+        if (!canRedo()) {
+            return false;
+        }
 
-        if (tile.getState() == Tile.State.CLOSED)
-            tile.setState(Tile.State.MARKED);
+        final MoveRecord record = beginMove(null);
 
-        else if (tile.getState() == Tile.State.MARKED)
-            tile.setState(Tile.State.CLOSED);
+        try {
+            final int move = journal.redo();
+
+            for (int i = journal.getStart(move); i < journal.getEnd(move); ++i) {
+                transition(journal.getIndex(i), journal.getFrom(i),
+                        journal.getTo(i), record);
+            }
+
+            if (journal.getEndState(move) != null) {
+                record.previousState = state.getAndSet(journal.getEndState(move));
+            }
+        }
+        finally {
+            endMove(record);
+        }
+
+        return true;
+    }
+
+    /**
+     * Adds listener notified about every change of the field.
+     *
+     * @param listener field listener
+     */
+    public void addListener(IFieldListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes field listener.
+     *
+     * @param listener field listener
+     */
+    public void removeListener(IFieldListener listener) {
+        listeners.remove(listener);
     }
 
     /**
@@ -159,61 +805,182 @@ public class Field {
      * @return number of tiles in the selected state
      */
     public int getNumberOf(Tile.State state) {
-        int num = 0;
+        switch (state) {
+            case OPEN:
+                return openCount.get();
 
-        for (int i = 0; i < rowCount; ++i) {
-            for (int j = 0; j < columnCount; ++j) {
-                if (tiles[i][j].getState() == state) {
-                    ++num;
-                }
-            }
+            case MARKED:
+                return markedCount.get();
+
+            default:
+                return cells.size() - openCount.get() - markedCount.get();
         }
+    }
+
+    /**
+     * Returns state of the tile at specified index.
+     *
+     * @param index index of the tile
+     * @return state of the tile
+     */
+    Tile.State getTileState(int index) {
+        return unpack(cells.get(index));
+    }
+
+    /**
+     * Sets state of the tile at specified index.
+     *
+     * @param index index of the tile
+     * @param state new state of the tile
+     */
+    void setTileState(int index, Tile.State state) {
+        final MoveRecord record = beginMove(journal);
 
-        return num;
+        try {
+            transition(index, cells.get(index) & STATE_MASK, pack(state), record);
+        }
+        finally {
+            endMove(record);
+        }
+    }
+
+    /**
+     * Returns clue value of the tile at specified index.
+     *
+     * @param index index of the tile
+     * @return clue value of the tile
+     */
+    int getClueValue(int index) {
+        return cells.get(index) & CLUE_MASK;
+    }
+
+    /**
+     * Returns storage of the cells.
+     *
+     * @return storage of the cells
+     */
+    CellStore getCells() {
+        return cells;
     }
 
     /**
      * Generates playing field.
      */
     private void generatePlayingField() {
-        generateMines();
+        generateMines(new int[0]);
         fillWithClues();
     }
 
     /**
-     * Generates random mines on field.
+     * Returns sorted indexes of the start tile and its neighbours, or only
+     * of the start tile if the mines do not fit around it.
+     *
+     * @param start index of the start tile
+     * @return sorted indexes of safe tiles
+     */
+    private int[] safeTiles(int start) {
+        final int row = start / columnCount;
+        final int column = start % columnCount;
+        final int[] tiles = new int[9];
+        int count = 0;
+
+        for (int actRow = row - 1; actRow <= row + 1; ++actRow) {
+            for (int actColumn = column - 1; actColumn <= column + 1; ++actColumn) {
+                if (actRow >= 0 && actRow < rowCount &&
+                        actColumn >= 0 && actColumn < columnCount) {
+                    tiles[count++] = actRow * columnCount + actColumn;
+                }
+            }
+        }
+
+        if (mineCount > cells.size() - count) {
+            return new int[] {start};
+        }
+
+        return Arrays.copyOf(tiles, count);
+    }
+
+    /**
+     * Generates random mines on field, none of them on the safe tiles.
+     * Sparse fields sample the mines, dense fields sample the tiles
+     * without mines, so the work never exceeds the count of tiles.
+     *
+     * @param safeTiles sorted indexes of tiles without mines
+     */
+    private void generateMines(int[] safeTiles) {
+        SplittableRandom rand = new SplittableRandom(seed);
+        final int freeCount = cells.size() - safeTiles.length;
+
+        if (mineCount <= freeCount / 2) {
+            sampleTiles(rand, mineCount, true, safeTiles);
+        }
+        else {
+            cells.fill((byte) MINE_BIT);
+            for (int index : safeTiles) {
+                cells.set(index, (byte) 0);
+            }
+            sampleTiles(rand, freeCount - mineCount, false, safeTiles);
+        }
+    }
+
+    /**
+     * Chooses specified count of distinct random tiles by Floyd's sampling
+     * algorithm and sets their mine bit to the specified value.
+     * Mine bits of the tiles serve as the set of chosen tiles, so every
+     * draw chooses a new tile and no draw is ever repeated. Draws are
+     * numbers of tiles which are not safe, so safe tiles are never chosen.
+     *
+     * @param rand      random number generator
+     * @param count     count of tiles to choose
+     * @param mine      true to place mines on chosen tiles, false to clear
+     *                  them
+     * @param safeTiles sorted indexes of tiles which are never chosen
      */
-    private void generateMines() {
-        Random rand = new Random();
-        int actualMineCount = 0;
+    private void sampleTiles(SplittableRandom rand, int count, boolean mine,
+                             int[] safeTiles) {
+        final int freeCount = cells.size() - safeTiles.length;
 
-        int row, column;
-        int min = 0;
-        int rowMax = rowCount - 1;
-        int columnMax = columnCount - 1;
+        for (int last = freeCount - count; last < freeCount; ++last) {
+            int index = skipSafeTiles(rand.nextInt(last + 1), safeTiles);
 
-        while (actualMineCount < mineCount) {
-            row = rand.nextInt((rowMax - min) + 1) + min;
-            column = rand.nextInt((columnMax - min) + 1) + min;
+            if (isMine(index) == mine) {
+                index = skipSafeTiles(last, safeTiles);
+            }
 
-            if (tiles[row][column] == null) {
-                tiles[row][column] = new Mine();
-                ++actualMineCount;
+            if (mine) {
+                cells.set(index, (byte) (cells.get(index) | MINE_BIT));
+            }
+            else {
+                cells.set(index, (byte) (cells.get(index) & ~MINE_BIT));
             }
         }
     }
 
     /**
-     * Fill tiles with clues
+     * Returns index of the tile with specified number among tiles which
+     * are not safe.
+     *
+     * @param number    number of the tile among tiles which are not safe
+     * @param safeTiles sorted indexes of safe tiles
+     * @return index of the tile
      */
-    private void fillWithClues() {
-        for (int i = 0; i < rowCount; ++i) {
-            for (int j = 0; j < columnCount; ++j) {
-                if (tiles[i][j] == null) {
-                    tiles[i][j] = new Clue(countAdjacentMines(i, j));
-                }
+    private static int skipSafeTiles(int number, int[] safeTiles) {
+        int index = number;
+
+        for (int safeTile : safeTiles) {
+            if (safeTile <= index) {
+                ++index;
             }
         }
+
+        return index;
+    }
+
+    /**
+     * Fill tiles with clues
+     */
+    private void fillWithClues() {
+        ClueFiller.fill(cells, rowCount, columnCount);
     }
 
     /**
@@ -222,57 +989,448 @@ public class Field {
      * @return true if game is solved, false otherwise
      */
     private boolean isSolved() {
-        int allTilesCount = rowCount * columnCount;
-        int remainingTilesCount = allTilesCount - getNumberOf(Tile.State.OPEN);
+        int remainingTilesCount = cells.size() - openCount.get();
 
         return (remainingTilesCount == mineCount);
     }
 
     /**
-     * Returns number of adjacent mines for a tile at specified position
-     * in the field.
+     * Opens tile at specified index.
      *
-     * @param row    row number.
-     * @param column column number.
-     * @return number of adjacent mines.
+     * @param index index of the tile
      */
-    private int countAdjacentMines(int row, int column) {
-        int count = 0;
+    private void open(int index, MoveRecord record) {
+        if (transition(index, CLOSED, OPEN, record)) {
+            if (isMine(index)) {
+                if (state.compareAndSet(GameState.PLAYING, GameState.FAILED)) {
+                    record.previousState = GameState.PLAYING;
+                }
+            }
 
-        for (int rowOffset = -1; rowOffset <= 1; rowOffset++) {
-            int actRow = row + rowOffset;
-            if (actRow >= 0 && actRow < rowCount) {
-                for (int columnOffset = -1; columnOffset <= 1; columnOffset++) {
-                    int actColumn = column + columnOffset;
-                    if (actColumn >= 0 && actColumn < columnCount) {
-                        if (tiles[actRow][actColumn] instanceof Mine) {
-                            count++;
-                        }
-                    }
+            else if (getClueValue(index) == 0) {
+                openZeroRegion(index, record);
+            }
+        }
+    }
+
+    /**
+     * Opens all closed tiles adjacent to an open clue, if the clue has
+     * as many marked adjacent tiles as is its value.
+     *
+     * @param index  index of the tile
+     * @param record record of the move
+     */
+    private void chord(int index, MoveRecord record) {
+        if ((cells.get(index) & STATE_MASK) != OPEN || isMine(index)) {
+            return;
+        }
+
+        final int row = index / columnCount;
+        final int column = index % columnCount;
+        final int fromRow = Math.max(row - 1, 0);
+        final int toRow = Math.min(row + 1, rowCount - 1);
+        final int fromColumn = Math.max(column - 1, 0);
+        final int toColumn = Math.min(column + 1, columnCount - 1);
+
+        int markedAdjacent = 0;
+        for (int actRow = fromRow; actRow <= toRow; ++actRow) {
+            for (int actColumn = fromColumn; actColumn <= toColumn; ++actColumn) {
+                if ((cells.get(actRow * columnCount + actColumn) & STATE_MASK)
+                        == MARKED) {
+                    ++markedAdjacent;
                 }
             }
         }
 
-        return count;
+        if (markedAdjacent != getClueValue(index)) {
+            return;
+        }
+
+        for (int actRow = fromRow; actRow <= toRow; ++actRow) {
+            for (int actColumn = fromColumn; actColumn <= toColumn; ++actColumn) {
+                open(actRow * columnCount + actColumn, record);
+            }
+        }
     }
 
     /**
-     * Open adjacent tiles for a tile at specified position in the field.
+     * Marks or unmarks tile at specified index.
      *
-     * @param row row number
-     * @param column column number
+     * @param index index of the tile
      */
-    private void openAdjacentTiles(int row, int column) {
-        for (int rowOffset = -1; rowOffset <= 1; rowOffset++) {
-            int actRow = row + rowOffset;
-            if (actRow >= 0 && actRow < rowCount) {
-                for (int columnOffset = -1; columnOffset <= 1; columnOffset++) {
-                    int actColumn = column + columnOffset;
-                    if (actColumn >= 0 && actColumn < columnCount) {
-                        openTile(actRow, actColumn);
+    private void mark(int index, MoveRecord record) {
+        if (!transition(index, CLOSED, MARKED, record))
+            transition(index, MARKED, CLOSED, record);
+    }
+
+    /**
+     * Starts a move. Changed tiles are recorded only if there is
+     * a listener.
+     *
+     * @param journal journal which records the move, null if the move is
+     *                not journaled
+     * @return record of the move
+     */
+    private MoveRecord beginMove(MoveJournal journal) {
+        if (closed) {
+            throw new IllegalStateException("Field is closed");
+        }
+        if (readOnly) {
+            throw new IllegalStateException("Snapshot can not be changed");
+        }
+
+        final Lock lock = locks != null ?
+                locks[(int) Thread.currentThread().getId()
+                        & (LOCK_STRIPES - 1)].readLock() :
+                moveLock.asWriteLock();
+        lock.lock();
+
+        return new MoveRecord(!listeners.isEmpty(), journal, lock);
+    }
+
+    /**
+     * Ends a move. Updates counters, checks whether the game is solved
+     * and notifies listeners about the change, if there is any.
+     *
+     * @param record record of the move
+     */
+    private void endMove(MoveRecord record) {
+        try {
+            if (record.openDelta != 0) {
+                openCount.addAndGet(record.openDelta);
+            }
+            if (record.markedDelta != 0) {
+                markedCount.addAndGet(record.markedDelta);
+            }
+
+            if (isSolved() &&
+                    state.compareAndSet(GameState.PLAYING, GameState.SOLVED)) {
+                record.previousState = GameState.PLAYING;
+            }
+
+            if (record.journal != null) {
+                record.journal.endMove(
+                        record.previousState != null ? state.get() : null);
+            }
+        }
+        finally {
+            record.lock.unlock();
+        }
+
+        if (!record.recording ||
+                (record.tileCount == 0 && record.previousState == null)) {
+            return;
+        }
+
+        final GameState currentState = state.get();
+        final FieldChange change = new FieldChange(columnCount,
+                Arrays.copyOf(record.tiles, record.tileCount),
+                record.previousState != null ?
+                        record.previousState : currentState,
+                currentState);
+
+        for (IFieldListener listener : listeners) {
+            listener.fieldChanged(change);
+        }
+    }
+
+    /**
+     * Recomputes counters and game state from the cells.
+     */
+    private void recount() {
+        int open = 0;
+        int marked = 0;
+        GameState recountedState = GameState.PLAYING;
+
+        for (int index = 0; index < cells.size(); ++index) {
+            final int packedState = cells.get(index) & STATE_MASK;
+
+            if (packedState == OPEN) {
+                ++open;
+
+                if (isMine(index)) {
+                    recountedState = GameState.FAILED;
+                }
+            }
+            else if (packedState == MARKED) {
+                ++marked;
+            }
+        }
+
+        openCount.set(open);
+        markedCount.set(marked);
+        state.set(recountedState);
+
+        if (recountedState == GameState.PLAYING && isSolved()) {
+            state.set(GameState.SOLVED);
+        }
+    }
+
+    /**
+     * Opens the zero region around an open tile without adjacent mines.
+     * Work stack of tile indexes is used instead of recursion, so large
+     * regions can not overflow the call stack.
+     *
+     * @param index  index of the open tile without adjacent mines
+     * @param record record of the move
+     */
+    private void openZeroRegion(int index, MoveRecord record) {
+        int[] stack = new int[64];
+        int size = 0;
+
+        stack[size++] = index;
+
+        while (size > 0) {
+            final int current = stack[--size];
+            final int row = current / columnCount;
+            final int column = current % columnCount;
+
+            for (int actRow = Math.max(row - 1, 0);
+                 actRow <= Math.min(row + 1, rowCount - 1); ++actRow) {
+                for (int actColumn = Math.max(column - 1, 0);
+                     actColumn <= Math.min(column + 1, columnCount - 1);
+                     ++actColumn) {
+                    final int adjacent = actRow * columnCount + actColumn;
+
+                    if (transition(adjacent, CLOSED, OPEN, record)) {
+                        if (getClueValue(adjacent) == 0) {
+                            if (size == stack.length) {
+                                stack = Arrays.copyOf(stack, size * 2);
+                            }
+                            stack[size++] = adjacent;
+                        }
                     }
                 }
             }
         }
     }
-}
+
+    /**
+     * Returns index of the tile at specified position in the cell array.
+     *
+     * @param row    row number
+     * @param column column number
+     * @return index of the tile
+     */
+    private int indexOf(int row, int column) {
+        if (row < 0 || row >= rowCount || column < 0 || column >= columnCount) {
+            throw new IndexOutOfBoundsException(
+                    "Tile [" + row + ", " + column + "] is out of field");
+        }
+
+        return row * columnCount + column;
+    }
+
+    /**
+     * Returns true if the tile at specified index is a mine.
+     *
+     * @param index index of the tile
+     * @return true if the tile is a mine, false otherwise
+     */
+    private boolean isMine(int index) {
+        return (cells.get(index) & MINE_BIT) != 0;
+    }
+
+    /**
+     * Changes packed state of the tile at specified index, if the tile is
+     * in the expected state. Change is recorded in the move record.
+     *
+     * @param index         index of the tile
+     * @param expectedState expected packed state of the tile
+     * @param packedState   new packed state of the tile
+     * @param record        record of the move
+     * @return true if the state was changed, false otherwise
+     */
+    private boolean transition(int index, int expectedState, int packedState,
+                               MoveRecord record) {
+        final byte cell = cells.get(index);
+
+        if ((cell & STATE_MASK) != expectedState ||
+                !cells.compareAndSet(index, cell,
+                        (byte) ((cell & ~STATE_MASK) | packedState))) {
+            return false;
+        }
+
+        record.count(expectedState, -1);
+        record.count(packedState, 1);
+        record.add(index, expectedState, packedState);
+
+        return true;
+    }
+
+    /**
+     * Returns tile state of a packed cell.
+     *
+     * @param cell packed cell
+     * @return state of tile
+     */
+    static Tile.State unpack(int cell) {
+        switch (cell & STATE_MASK) {
+            case OPEN:
+                return Tile.State.OPEN;
+
+            case MARKED:
+                return Tile.State.MARKED;
+
+            default:
+                return Tile.State.CLOSED;
+        }
+    }
+
+    /**
+     * Returns packed representation of tile state.
+     *
+     * @param state state of tile
+     * @return packed state
+     */
+    static int pack(Tile.State state) {
+        switch (state) {
+            case OPEN:
+                return OPEN;
+
+            case MARKED:
+                return MARKED;
+
+            default:
+                return CLOSED;
+        }
+    }
+
+    /**
+     * Returns count of cells of the field with specified dimensions.
+     *
+     * @param rowCount    row count
+     * @param columnCount column count
+     * @return count of cells
+     */
+    private static int cellCount(int rowCount, int columnCount) {
+        if (rowCount <= 0 || columnCount <= 0) {
+            throw new IllegalArgumentException(
+                    "Field must have at least one row and one column");
+        }
+
+        try {
+            return Math.multiplyExact(rowCount, columnCount);
+        }
+        catch (ArithmeticException e) {
+            throw new IllegalArgumentException(
+                    "Field " + rowCount + "x" + columnCount + " is too large");
+        }
+    }
+
+    /**
+     * Checks that the mines fit into the field.
+     *
+     * @param mineCount mine count
+     * @param cellCount count of tiles
+     */
+    private static void checkMineCount(int mineCount, int cellCount) {
+        if (mineCount < 0 || mineCount > cellCount) {
+            throw new IllegalArgumentException(
+                    "Mine count " + mineCount + " does not fit into field");
+        }
+    }
+
+    /**
+     * Record of one move, private to the thread which makes the move.
+     */
+    private static final class MoveRecord {
+
+        /**
+         * True if changed tiles are recorded.
+         */
+        private final boolean recording;
+
+        /**
+         * Indexes of changed tiles, if they are recorded.
+         */
+        private int[] tiles;
+
+        /**
+         * Count of recorded changed tiles.
+         */
+        private int tileCount;
+
+        /**
+         * Change of the count of open tiles.
+         */
+        private int openDelta;
+
+        /**
+         * Change of the count of marked tiles.
+         */
+        private int markedDelta;
+
+        /**
+         * Game state before the move, null if the move did not change
+         * the game state.
+         */
+        private GameState previousState;
+
+        /**
+         * Journal which records the move, null if the move is not
+         * journaled.
+         */
+        private final MoveJournal journal;
+
+        /**
+         * Lock held during the move.
+         */
+        private final Lock lock;
+
+        /**
+         * Constructor.
+         *
+         * @param recording true if changed tiles are recorded
+         * @param journal   journal which records the move, may be null
+         * @param lock      lock held during the move
+         */
+        private MoveRecord(boolean recording, MoveJournal journal, Lock lock) {
+            this.recording = recording;
+            this.journal = journal;
+            this.lock = lock;
+
+            if (recording) {
+                tiles = new int[16];
+            }
+        }
+
+        /**
+         * Records changed tile.
+         *
+         * @param index index of the tile
+         * @param from  packed state before the change
+         * @param to    packed state after the change
+         */
+        private void add(int index, int from, int to) {
+            if (journal != null) {
+                journal.add(index, from, to);
+            }
+
+            if (!recording) {
+                return;
+            }
+
+            if (tileCount == tiles.length) {
+                tiles = Arrays.copyOf(tiles, tileCount * 2);
+            }
+            tiles[tileCount++] = index;
+        }
+
+        /**
+         * Adds delta to the change of the count of tiles in specified
+         * packed state.
+         *
+         * @param packedState packed state of tile
+         * @param delta       value added to the counter
+         */
+        private void count(int packedState, int delta) {
+            if (packedState == OPEN) {
+                openDelta += delta;
+            }
+            else if (packedState == MARKED) {
+                markedDelta += delta;
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,101 @@
+package minesweeper.core;
+
+/**
+ * Change of a field made by one move.
+ * Holds positions of tiles whose state changed and the game state
+ * transition.
+ */
+public class FieldChange {
+
+    /**
+     * Column count of the field.
+     */
+    private final int columnCount;
+
+    /**
+     * Indexes of changed tiles in row-major order of the field.
+     */
+    private final int[] tiles;
+
+    /**
+     * Game state before the change.
+     */
+    private final GameState previousState;
+
+    /**
+     * Game state after the change.
+     */
+    private final GameState state;
+
+    /**
+     * Constructor.
+     *
+     * @param columnCount   column count of the field
+     * @param tiles         indexes of changed tiles
+     * @param previousState game state before the change
+     * @param state         game state after the change
+     */
+    FieldChange(int columnCount, int[] tiles,
+                GameState previousState, GameState state) {
+        this.columnCount = columnCount;
+        this.tiles = tiles;
+        this.previousState = previousState;
+        this.state = state;
+    }
+
+    /**
+     * Returns count of changed tiles.
+     *
+     * @return count of changed tiles
+     */
+    public int getTileCount() {
+        return tiles.length;
+    }
+
+    /**
+     * Returns row number of a changed tile.
+     *
+     * @param i number of the changed tile
+     * @return row number
+     */
+    public int getRow(int i) {
+        return tiles[i] / columnCount;
+    }
+
+    /**
+     * Returns column number of a changed tile.
+     *
+     * @param i number of the changed tile
+     * @return column number
+     */
+    public int getColumn(int i) {
+        return tiles[i] % columnCount;
+    }
+
+    /**
+     * Returns game state before the change.
+     *
+     * @return game state before the change
+     */
+    public GameState getPreviousState() {
+        return previousState;
+    }
+
+    /**
+     * Returns game state after the change.
+     *
+     * @return game state after the change
+     */
+    public GameState getState() {
+        return state;
+    }
+
+    /**
+     * Returns true if the change ended or otherwise changed the game.
+     *
+     * @return true if game state changed
+     */
+    public boolean isStateChanged() {
+        return previousState != state;
+    }
+}
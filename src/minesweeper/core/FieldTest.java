@@ -1,8 +1,25 @@
 package minesweeper.core;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
 
 public class FieldTest {
 
@@ -10,6 +27,11 @@ public class FieldTest {
     static final int COLUMNS = 30;
     static final int MINES = (ROWS - 1) * (COLUMNS - 1);
 
+    private static final Path PROCESS_MAPS = Path.of("/proc/self/maps");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void isSolved() {
         Field field = new Field(ROWS, COLUMNS, MINES);
@@ -64,4 +86,697 @@ public class FieldTest {
         assertEquals(MINES, mineCount);
         assertEquals(ROWS * COLUMNS - MINES, clueCount);
     }
+
+    @Test
+    public void generateSparse() {
+        Field field = new Field(ROWS, COLUMNS, ROWS);
+
+        int mineCount = 0;
+        for (int i = 0; i < field.getRowCount(); ++i) {
+            for (int j = 0; j < field.getColumnCount(); ++j) {
+                if (field.getTile(i, j) instanceof Mine) {
+                    ++mineCount;
+                }
+            }
+        }
+
+        assertEquals(ROWS, mineCount);
+    }
+
+    @Test
+    public void safeStartHasNoMinesAround() {
+        int[] mineCounts = {ROWS, MINES, ROWS * COLUMNS - 1};
+
+        for (int mines : mineCounts) {
+            Field field = new Field(ROWS, COLUMNS, mines, 9, 0, 5);
+
+            int mineCount = 0;
+            for (int i = 0; i < field.getRowCount(); ++i) {
+                for (int j = 0; j < field.getColumnCount(); ++j) {
+                    if (field.getTile(i, j) instanceof Mine) {
+                        ++mineCount;
+                        assertTrue(mines == ROWS * COLUMNS - 1 ||
+                                i > 1 || j < 4 || j > 6);
+                    }
+                }
+            }
+
+            assertEquals(mines, mineCount);
+            assertTrue(field.getTile(0, 5) instanceof Clue);
+            assertCluesCountAdjacentMines(field);
+        }
+    }
+
+    @Test
+    public void seedsDoNotDependOnParallelism() {
+        long[] sequential = Field.seeds(7).limit(10000).toArray();
+
+        assertArrayEquals(sequential,
+                Field.seeds(7).parallel().limit(10000).toArray());
+        assertEquals(sequential.length,
+                Arrays.stream(sequential).distinct().count());
+    }
+
+    @Test
+    public void sameSeedSameField() {
+        long seed = Field.seeds(7).skip(3).findFirst().getAsLong();
+
+        Field field = new Field(ROWS, COLUMNS, ROWS * 4, seed);
+        Field other = new Field(ROWS, COLUMNS, ROWS * 4, seed);
+
+        assertEquals(seed, field.getSeed());
+        for (int i = 0; i < field.getRowCount(); ++i) {
+            for (int j = 0; j < field.getColumnCount(); ++j) {
+                assertEquals(field.getTile(i, j) instanceof Mine,
+                        other.getTile(i, j) instanceof Mine);
+            }
+        }
+    }
+
+    @Test
+    public void cluesOfLargeField() {
+        assertCluesCountAdjacentMines(new Field(700, 700, 700 * 700 / 6));
+        assertCluesCountAdjacentMines(new Field(1, 300000, 50000));
+    }
+
+    @Test
+    public void mappedFieldResumes() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("game.field");
+        Field field = Field.createMapped(file, ROWS, COLUMNS, ROWS * 4, 11);
+        Field expected = new Field(ROWS, COLUMNS, ROWS * 4, 11);
+
+        for (int j = 0; j < COLUMNS; ++j) {
+            if (expected.getTile(0, j) instanceof Mine) {
+                field.markTile(0, j);
+                expected.markTile(0, j);
+            }
+            else {
+                field.openTile(1, j);
+                expected.openTile(1, j);
+            }
+        }
+
+        // Reopened without closing, as after a crash.
+        assertSameField(expected, Field.openMapped(file));
+
+        field.close();
+        field.close();
+        assertSameField(expected, Field.openMapped(file));
+
+        // Game continues in the reopened field.
+        Field resumed = Field.openMapped(file);
+        for (int j = 0; j < COLUMNS; ++j) {
+            if (expected.getTile(0, j) instanceof Mine) {
+                resumed.markTile(0, j);
+                expected.markTile(0, j);
+            }
+        }
+        resumed.close();
+        assertSameField(expected, Field.openMapped(file));
+    }
+
+    @Test
+    public void closedMappedFieldIsUnmapped() throws IOException {
+        assumeTrue(Files.isReadable(PROCESS_MAPS));
+
+        Path file = folder.getRoot().toPath().resolve("game.field");
+        Field field = Field.createMapped(file, ROWS, COLUMNS, ROWS * 4, 11);
+
+        assertFalse(isMapped(file.getFileName() + ".tmp"));
+        assertTrue(isMapped(file.getFileName().toString()));
+
+        field.close();
+        assertFalse(isMapped(file.getFileName().toString()));
+
+        try {
+            field.openTile(0, 0);
+            fail("Closed field accepted a move");
+        }
+        catch (IllegalStateException e) {
+            // Expected.
+        }
+        try {
+            field.getTile(0, 0);
+            fail("Closed field file was read");
+        }
+        catch (IllegalStateException e) {
+            // Expected.
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void closedFieldRejectsMoves() throws IOException {
+        Field field = new Field(ROWS, COLUMNS, MINES);
+
+        field.close();
+        field.markTile(0, 0);
+    }
+
+    private static boolean isMapped(String fileName) throws IOException {
+        for (String line : Files.readAllLines(PROCESS_MAPS)) {
+            if (line.endsWith("/" + fileName)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Test
+    public void damagedMappedHeaderIsRejected() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("game.field");
+        Field.createMapped(file, ROWS, COLUMNS, ROWS * 4, 11).close();
+        byte[] valid = Files.readAllBytes(file);
+
+        // Negative row count comes with negative column count, so that
+        // their product is positive.
+        int[][] damages = {{12, -ROWS}, {16, -COLUMNS}, {20, -1},
+                {20, ROWS * COLUMNS + 1}};
+        for (int[] damage : damages) {
+            ByteBuffer bytes = ByteBuffer.wrap(valid.clone());
+            bytes.putInt(damage[0], damage[1]);
+            if (damage[0] == 12) {
+                bytes.putInt(16, -COLUMNS);
+            }
+            Files.write(file, bytes.array());
+            assertOpenFails(file);
+        }
+
+        // Unknown state of game.
+        byte[] bytes = valid.clone();
+        bytes[40] = 100;
+        Files.write(file, bytes);
+        assertOpenFails(file);
+    }
+
+    private static void assertOpenFails(Path file) {
+        try {
+            Field.openMapped(file);
+            fail("Damaged header of " + file + " was accepted");
+        }
+        catch (IOException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void changeListsChangedTiles() {
+        Field field = new Field(ROWS, COLUMNS, ROWS);
+        List<FieldChange> changes = new ArrayList<>();
+        field.addListener(changes::add);
+
+        for (int i = 0; i < field.getRowCount(); ++i) {
+            for (int j = 0; j < field.getColumnCount(); ++j) {
+                if (field.getTile(i, j) instanceof Clue &&
+                        ((Clue) field.getTile(i, j)).getValue() == 0 &&
+                        field.getTile(i, j).getState() == Tile.State.CLOSED) {
+                    int open = field.getNumberOf(Tile.State.OPEN);
+                    field.openTile(i, j);
+
+                    FieldChange change = changes.get(changes.size() - 1);
+                    assertEquals(field.getNumberOf(Tile.State.OPEN) - open,
+                            change.getTileCount());
+                    for (int k = 0; k < change.getTileCount(); ++k) {
+                        assertEquals(Tile.State.OPEN, field.getTile(
+                                change.getRow(k), change.getColumn(k)).getState());
+                    }
+                }
+            }
+        }
+
+        int count = changes.size();
+        field.markTile(0, 0);
+        field.markTile(0, 0);
+        assertEquals(field.getTile(0, 0).getState() == Tile.State.OPEN ?
+                count : count + 2, changes.size());
+    }
+
+    @Test
+    public void chordOpensAdjacentTiles() {
+        Field field = new Field(ROWS, COLUMNS, ROWS * 4, 3);
+
+        for (int i = 1; i < field.getRowCount() - 1; ++i) {
+            for (int j = 1; j < field.getColumnCount() - 1; ++j) {
+                Tile tile = field.getTile(i, j);
+
+                if (tile instanceof Clue && tile.getState() == Tile.State.CLOSED) {
+                    field.openTile(i, j);
+                    field.chordTile(i, j);
+                    for (int row = i - 1; row <= i + 1; ++row) {
+                        for (int column = j - 1; column <= j + 1; ++column) {
+                            if (field.getTile(row, column) instanceof Mine &&
+                                    field.getTile(row, column).getState() ==
+                                            Tile.State.CLOSED) {
+                                field.markTile(row, column);
+                            }
+                        }
+                    }
+
+                    field.chordTile(i, j);
+
+                    for (int row = i - 1; row <= i + 1; ++row) {
+                        for (int column = j - 1; column <= j + 1; ++column) {
+                            assertEquals(field.getTile(row, column) instanceof Mine
+                                            ? Tile.State.MARKED : Tile.State.OPEN,
+                                    field.getTile(row, column).getState());
+                        }
+                    }
+                }
+            }
+        }
+
+        assertEquals(GameState.PLAYING, field.getState());
+    }
+
+    @Test
+    public void applyMovesNotifiesOnce() {
+        Field field = new Field(ROWS, COLUMNS, MINES);
+        List<FieldChange> changes = new ArrayList<>();
+        List<Move> moves = new ArrayList<>();
+        field.addListener(changes::add);
+
+        for (int i = 0; i < field.getRowCount(); ++i) {
+            for (int j = 0; j < field.getColumnCount(); ++j) {
+                moves.add(field.getTile(i, j) instanceof Mine ?
+                        Move.mark(i, j) : Move.open(i, j));
+            }
+        }
+
+        field.applyMoves(moves);
+
+        assertEquals(GameState.SOLVED, field.getState());
+        assertEquals(1, changes.size());
+        assertEquals(ROWS * COLUMNS, changes.get(0).getTileCount());
+        assertEquals(GameState.PLAYING, changes.get(0).getPreviousState());
+    }
+
+    @Test
+    public void copyIsIndependent() {
+        Field field = new Field(200, 200, 4000, 5);
+        field.openTile(100, 100);
+        Field expected = new Field(200, 200, 4000, 5);
+        expected.openTile(100, 100);
+
+        Field copy = field.copy();
+        for (int i = 0; i < field.getRowCount(); ++i) {
+            field.markTile(i, i);
+        }
+        assertSameField(expected, copy);
+
+        Field fork = copy.copy();
+        fork.markTile(0, 199);
+        assertSameField(expected, copy);
+        assertEquals(expected.getTile(0, 199).getState(),
+                field.getTile(0, 199).getState());
+    }
+
+    @Test
+    public void copyOfConcurrentFieldIsIndependent() {
+        Field field = Field.createConcurrent(200, 200, 4000, 5);
+        field.openTile(100, 100);
+        Field expected = new Field(200, 200, 4000, 5);
+        expected.openTile(100, 100);
+
+        Field copy = field.copy();
+        assertFalse(copy.isConcurrent());
+        for (int i = 0; i < field.getRowCount(); ++i) {
+            field.markTile(i, i);
+        }
+        assertSameField(expected, copy);
+
+        copy.markTile(0, 199);
+        assertEquals(expected.getTile(0, 199).getState(),
+                field.getTile(0, 199).getState());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void snapshotRejectsMoves() {
+        Field field = new Field(ROWS, COLUMNS, MINES);
+
+        field.snapshot().openTile(0, 0);
+    }
+
+    @Test
+    public void snapshotOnAnotherThreadHasWholeMoves() throws Exception {
+        final int size = 100;
+        AtomicReference<Field> played = new AtomicReference<>();
+        AtomicReference<Field> snapshot = new AtomicReference<>();
+        Thread spectator =
+                new Thread(() -> snapshot.set(played.get().snapshot()));
+        AtomicInteger changes = new AtomicInteger(-1);
+
+        // Spectator takes the snapshot in the middle of the move.
+        CellStore cells = new ArrayCellStore(size * size) {
+            @Override
+            void set(int index, byte cell) {
+                super.set(index, cell);
+
+                if (changes.get() >= 0 &&
+                        changes.incrementAndGet() == size * size / 2) {
+                    spectator.start();
+                    try {
+                        spectator.join(200);
+                    }
+                    catch (InterruptedException e) {
+                        throw new AssertionError(e);
+                    }
+                    assertTrue(spectator.isAlive());
+                }
+            }
+        };
+        Field field = Field.restore(size, size, 0, 1, cells);
+        played.set(field);
+
+        changes.set(0);
+        field.openTile(0, 0);
+        spectator.join();
+
+        assertEquals(size * size, snapshot.get().getNumberOf(Tile.State.OPEN));
+        assertEquals(size * size, countByScan(snapshot.get(), Tile.State.OPEN));
+    }
+
+    @Test
+    public void mappedSnapshotKeepsItsState() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("game.field");
+        Field field = Field.createMapped(file, 200, 200, 4000, 5);
+        field.openTile(100, 100);
+
+        Field expected = field.copy();
+        Field snapshot = field.snapshot();
+        for (int i = 0; i < field.getRowCount(); ++i) {
+            field.markTile(i, i);
+        }
+        assertSameField(expected, snapshot);
+
+        Field laterExpected = field.copy();
+        Field laterSnapshot = field.snapshot();
+        for (int i = 0; i < field.getRowCount(); ++i) {
+            field.markTile(i, field.getColumnCount() - 1 - i);
+        }
+        assertSameField(expected, snapshot);
+        assertSameField(laterExpected, laterSnapshot);
+
+        field.close();
+        assertSameField(expected, snapshot);
+        assertSameField(laterExpected, laterSnapshot);
+    }
+
+    @Test
+    public void openLargeZeroRegion() {
+        Field field = new Field(1000, 1000, 0);
+
+        field.openTile(500, 500);
+
+        assertEquals(1000 * 1000, field.getNumberOf(Tile.State.OPEN));
+        assertEquals(GameState.SOLVED, field.getState());
+    }
+
+    @Test
+    public void countersMatchFullScan() {
+        Field field = new Field(ROWS, COLUMNS, ROWS * COLUMNS / 8);
+        Random random = new Random(42);
+
+        for (int move = 0; move < 500; ++move) {
+            int row = random.nextInt(ROWS);
+            int column = random.nextInt(COLUMNS);
+
+            if (random.nextInt(3) == 0) {
+                field.markTile(row, column);
+            }
+            else if (!(field.getTile(row, column) instanceof Mine)) {
+                field.openTile(row, column);
+            }
+
+            for (Tile.State state : Tile.State.values()) {
+                assertEquals(countByScan(field, state),
+                        field.getNumberOf(state));
+            }
+            assertEquals(field.getMineCount() -
+                            countByScan(field, Tile.State.MARKED),
+                    field.getRemainingMineCount());
+        }
+    }
+
+    @Test
+    public void concurrentOpenSolvesOnce() throws InterruptedException {
+        Field field = Field.createConcurrent(200, 200, 4000, 11);
+        AtomicInteger changedTiles = new AtomicInteger();
+        AtomicInteger solvedChanges = new AtomicInteger();
+
+        field.addListener(change -> {
+            changedTiles.addAndGet(change.getTileCount());
+            if (change.isStateChanged() &&
+                    change.getState() == GameState.SOLVED) {
+                solvedChanges.incrementAndGet();
+            }
+        });
+
+        List<Integer> safeTiles = new ArrayList<>();
+        for (int i = 0; i < 200 * 200; ++i) {
+            if (!(field.getTile(i / 200, i % 200) instanceof Mine)) {
+                safeTiles.add(i);
+            }
+        }
+
+        Thread[] players = new Thread[4];
+        for (int p = 0; p < players.length; ++p) {
+            List<Integer> order = new ArrayList<>(safeTiles);
+            Collections.shuffle(order, new Random(p));
+
+            players[p] = new Thread(() -> {
+                for (int i : order) {
+                    field.openTile(i / 200, i % 200);
+                }
+            });
+        }
+        for (Thread player : players) {
+            player.start();
+        }
+        for (Thread player : players) {
+            player.join();
+        }
+
+        assertEquals(GameState.SOLVED, field.getState());
+        assertEquals(1, solvedChanges.get());
+        assertEquals(safeTiles.size(), changedTiles.get());
+        assertEquals(safeTiles.size(), field.getNumberOf(Tile.State.OPEN));
+    }
+
+    @Test
+    public void overlappingZeroRegionsOpenEachTileOnce()
+            throws InterruptedException {
+        final int size = 500;
+
+        for (int round = 0; round < 5; ++round) {
+            Field field = Field.createConcurrent(size, size, 0, round);
+            AtomicIntegerArray reports = new AtomicIntegerArray(size * size);
+            AtomicInteger solvedChanges = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+
+            field.addListener(change -> {
+                for (int i = 0; i < change.getTileCount(); ++i) {
+                    reports.incrementAndGet(
+                            change.getRow(i) * size + change.getColumn(i));
+                }
+                if (change.isStateChanged() &&
+                        change.getState() == GameState.SOLVED) {
+                    solvedChanges.incrementAndGet();
+                }
+            });
+
+            int[][] corners = {{0, 0}, {0, size - 1}, {size - 1, 0},
+                    {size - 1, size - 1}};
+            Thread[] players = new Thread[corners.length];
+            for (int p = 0; p < players.length; ++p) {
+                int[] corner = corners[p];
+
+                players[p] = new Thread(() -> {
+                    try {
+                        start.await();
+                    }
+                    catch (InterruptedException e) {
+                        return;
+                    }
+                    field.openTile(corner[0], corner[1]);
+                });
+                players[p].start();
+            }
+            start.countDown();
+            for (Thread player : players) {
+                player.join();
+            }
+
+            for (int i = 0; i < size * size; ++i) {
+                assertEquals(1, reports.get(i));
+            }
+            assertEquals(size * size, field.getNumberOf(Tile.State.OPEN));
+            assertEquals(1, solvedChanges.get());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void concurrentFieldRejectsUndo() {
+        Field.createConcurrent(ROWS, COLUMNS, MINES, 1).setUndoEnabled(true);
+    }
+
+    @Test
+    public void concurrentMovesKeepCounters() throws InterruptedException {
+        Field field = Field.createConcurrent(ROWS, COLUMNS, ROWS * COLUMNS / 8, 5);
+        List<Field> copies = Collections.synchronizedList(new ArrayList<>());
+
+        Thread[] players = new Thread[4];
+        for (int p = 0; p < players.length; ++p) {
+            Random random = new Random(p);
+
+            players[p] = new Thread(() -> {
+                for (int move = 0; move < 2000; ++move) {
+                    int row = random.nextInt(ROWS);
+                    int column = random.nextInt(COLUMNS);
+
+                    if (random.nextInt(3) == 0) {
+                        field.markTile(row, column);
+                    }
+                    else if (!(field.getTile(row, column) instanceof Mine)) {
+                        field.openTile(row, column);
+                    }
+
+                    if (move % 100 == 0) {
+                        copies.add(field.snapshot());
+                    }
+                }
+            });
+        }
+        for (Thread player : players) {
+            player.start();
+        }
+        for (Thread player : players) {
+            player.join();
+        }
+
+        copies.add(field);
+        for (Field copy : copies) {
+            for (Tile.State state : Tile.State.values()) {
+                assertEquals(countByScan(copy, state), copy.getNumberOf(state));
+            }
+        }
+    }
+
+    @Test
+    public void undoAndRedoRestoreField() {
+        Field field = new Field(ROWS, COLUMNS, ROWS * COLUMNS / 8, 3);
+        List<Field> snapshots = new ArrayList<>();
+        Random random = new Random(3);
+
+        field.setUndoEnabled(true);
+        snapshots.add(field.copy());
+        IFieldListener snapshot = change -> snapshots.add(field.copy());
+        field.addListener(snapshot);
+        while (field.getState() == GameState.PLAYING) {
+            int row = random.nextInt(ROWS);
+            int column = random.nextInt(COLUMNS);
+
+            if (random.nextInt(4) == 0) {
+                field.markTile(row, column);
+            }
+            else {
+                field.openTile(row, column);
+            }
+        }
+
+        field.removeListener(snapshot);
+
+        assertFalse(field.canRedo());
+        for (int i = snapshots.size() - 2; i >= 0; --i) {
+            assertTrue(field.undo());
+            assertSameField(snapshots.get(i), field);
+        }
+        assertFalse(field.undo());
+
+        for (int i = 1; i < snapshots.size(); ++i) {
+            assertTrue(field.redo());
+            assertSameField(snapshots.get(i), field);
+        }
+        assertFalse(field.redo());
+    }
+
+    @Test
+    public void newMoveDiscardsRedo() {
+        Field field = new Field(1000, 1000, 0, 1);
+        List<FieldChange> changes = new ArrayList<>();
+
+        field.setUndoEnabled(true);
+        field.addListener(changes::add);
+        field.openTile(0, 0);
+        assertEquals(GameState.SOLVED, field.getState());
+
+        assertTrue(field.undo());
+        assertEquals(GameState.PLAYING, field.getState());
+        assertEquals(1000 * 1000, field.getNumberOf(Tile.State.CLOSED));
+        assertEquals(1000 * 1000, changes.get(1).getTileCount());
+        assertTrue(changes.get(1).isStateChanged());
+
+        field.openTile(0, 0);
+        assertTrue(field.getTile(0, 0).getState() == Tile.State.OPEN);
+        field.undo();
+        field.markTile(5, 5);
+        assertFalse(field.canRedo());
+        assertTrue(field.undo());
+        assertFalse(field.canUndo());
+    }
+
+    private static void assertCluesCountAdjacentMines(Field field) {
+        for (int i = 0; i < field.getRowCount(); ++i) {
+            for (int j = 0; j < field.getColumnCount(); ++j) {
+                Tile tile = field.getTile(i, j);
+
+                if (tile instanceof Clue) {
+                    int count = 0;
+                    for (int row = i - 1; row <= i + 1; ++row) {
+                        for (int column = j - 1; column <= j + 1; ++column) {
+                            if (row >= 0 && row < field.getRowCount() &&
+                                    column >= 0 &&
+                                    column < field.getColumnCount() &&
+                                    field.getTile(row, column) instanceof Mine) {
+                                ++count;
+                            }
+                        }
+                    }
+
+                    assertEquals(count, ((Clue) tile).getValue());
+                }
+            }
+        }
+    }
+
+    private static void assertSameField(Field expected, Field actual) {
+        assertEquals(expected.getSeed(), actual.getSeed());
+        assertEquals(expected.getState(), actual.getState());
+        for (Tile.State state : Tile.State.values()) {
+            assertEquals(expected.getNumberOf(state), actual.getNumberOf(state));
+        }
+
+        for (int i = 0; i < expected.getRowCount(); ++i) {
+            for (int j = 0; j < expected.getColumnCount(); ++j) {
+                Tile tile = actual.getTile(i, j);
+
+                assertEquals(expected.getTile(i, j).getState(), tile.getState());
+                assertEquals(expected.getTile(i, j) instanceof Mine,
+                        tile instanceof Mine);
+            }
+        }
+    }
+
+    private static int countByScan(Field field, Tile.State state) {
+        int count = 0;
+
+        for (int i = 0; i < field.getRowCount(); ++i) {
+            for (int j = 0; j < field.getColumnCount(); ++j) {
+                if (field.getTile(i, j).getState() == state) {
+                    ++count;
+                }
+            }
+        }
+
+        return count;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package minesweeper.core;
+
+public interface IFieldListener {
+
+    /**
+     * Called after tiles or game state of the field changed.
+     *
+     * @param change changed tiles and game state transition
+     */
+    void fieldChanged(FieldChange change);
+}
@@ -0,0 +1,535 @@
+package minesweeper.core;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Storage of packed field cells in a memory-mapped file.
+ *
+ * File starts with a header which describes the field, followed by one
+ * byte per cell. Cells are paged in and out by the operating system, so
+ * they do not occupy the Java heap. Every change of a tile writes exactly
+ * one byte, so a crash can never leave a torn cell in the file.
+ * Counters and game state in the header are valid only if the file was
+ * closed cleanly; otherwise they are recomputed from the cells. Closed
+ * storage is unmapped and can be neither read nor changed.
+ * Snapshot of the cells reads the file and gets a copy of each page
+ * just before the page is first changed after the snapshot was made.
+ */
+class MappedCellStore extends CellStore {
+
+    /**
+     * Magic number at the start of the file.
+     */
+    private static final long MAGIC = 0x4D494E4553575052L;
+
+    /**
+     * Version of the file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Size of the header in bytes.
+     */
+    private static final int HEADER_SIZE = 64;
+
+    /**
+     * Size of one mapped segment as a power of two.
+     */
+    private static final int SEGMENT_BITS = 30;
+
+    /**
+     * Mask of position inside of a segment.
+     */
+    private static final int SEGMENT_MASK = (1 << SEGMENT_BITS) - 1;
+
+    /**
+     * Header offsets.
+     */
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 8;
+    private static final int ROW_COUNT_OFFSET = 12;
+    private static final int COLUMN_COUNT_OFFSET = 16;
+    private static final int MINE_COUNT_OFFSET = 20;
+    private static final int SEED_OFFSET = 24;
+    private static final int OPEN_COUNT_OFFSET = 32;
+    private static final int MARKED_COUNT_OFFSET = 36;
+    private static final int STATE_OFFSET = 40;
+    private static final int CLEAN_OFFSET = 41;
+
+    /**
+     * Releases mapping of a buffer at once, null if the runtime does not
+     * allow it. Mapping is then released when the buffer is collected.
+     */
+    private static final MethodHandle UNMAP = findUnmap();
+
+    /**
+     * Mapped segments of the file. First segment starts with the header.
+     * Null after the storage is closed.
+     */
+    private volatile MappedByteBuffer[] segments;
+
+    /**
+     * Snapshots which may still read pages from the file.
+     */
+    private final List<WeakReference<MappedSnapshot>> snapshots =
+            new CopyOnWriteArrayList<>();
+
+    /**
+     * Epoch in which each page was last saved into snapshots. Page of an
+     * older epoch is saved again before it is changed.
+     */
+    private final long[] saved;
+
+    /**
+     * Current epoch, increased by every snapshot.
+     */
+    private volatile long epoch;
+
+    /**
+     * Count of cells.
+     */
+    private final int size;
+
+    /**
+     * True if the header is marked as closed cleanly.
+     */
+    private boolean clean;
+
+    /**
+     * Constructor. Maps the header and cells of the file.
+     *
+     * @param channel channel of the file
+     * @param size    count of cells
+     * @throws IOException if the file can not be mapped
+     */
+    private MappedCellStore(FileChannel channel, int size) throws IOException {
+        final long length = HEADER_SIZE + (long) size;
+
+        this.size = size;
+        saved = new long[pageCount(size)];
+        segments = new MappedByteBuffer[(int) ((length - 1) >>> SEGMENT_BITS) + 1];
+
+        for (int i = 0; i < segments.length; ++i) {
+            final long position = (long) i << SEGMENT_BITS;
+
+            segments[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                    position, Math.min(length - position, 1L << SEGMENT_BITS));
+        }
+    }
+
+    /**
+     * Creates new file for the field with all cells empty.
+     *
+     * @param file        path of the file
+     * @param rowCount    row count
+     * @param columnCount column count
+     * @param mineCount   mine count
+     * @param seed        seed of the mine layout
+     * @return storage of the file
+     * @throws IOException if the file can not be created
+     */
+    static MappedCellStore create(Path file, int rowCount, int columnCount,
+                                  int mineCount, long seed) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedCellStore store =
+                    new MappedCellStore(channel, rowCount * columnCount);
+            MappedByteBuffer header = store.segments[0];
+
+            header.putLong(MAGIC_OFFSET, MAGIC);
+            header.putInt(VERSION_OFFSET, VERSION);
+            header.putInt(ROW_COUNT_OFFSET, rowCount);
+            header.putInt(COLUMN_COUNT_OFFSET, columnCount);
+            header.putInt(MINE_COUNT_OFFSET, mineCount);
+            header.putLong(SEED_OFFSET, seed);
+
+            return store;
+        }
+    }
+
+    /**
+     * Opens existing file of the field.
+     *
+     * @param file path of the file
+     * @return storage of the file
+     * @throws IOException if the file can not be opened or is not valid
+     */
+    static MappedCellStore open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException(file + " is not a minesweeper field");
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException(file + " is truncated or damaged");
+                }
+            }
+
+            if (header.getLong(MAGIC_OFFSET) != MAGIC) {
+                throw new IOException(file + " is not a minesweeper field");
+            }
+            if (header.getInt(VERSION_OFFSET) != VERSION) {
+                throw new IOException(file + " has unsupported version " +
+                        header.getInt(VERSION_OFFSET));
+            }
+
+            final int rowCount = header.getInt(ROW_COUNT_OFFSET);
+            final int columnCount = header.getInt(COLUMN_COUNT_OFFSET);
+            final int mineCount = header.getInt(MINE_COUNT_OFFSET);
+            final int state = header.get(STATE_OFFSET);
+            final long size = (long) rowCount * columnCount;
+
+            if (rowCount <= 0 || columnCount <= 0 ||
+                    size > Integer.MAX_VALUE ||
+                    mineCount < 0 || mineCount > size ||
+                    state < 0 || state >= GameState.values().length ||
+                    channel.size() != HEADER_SIZE + size) {
+                throw new IOException(file + " is truncated or damaged");
+            }
+
+            MappedCellStore store = new MappedCellStore(channel, (int) size);
+            store.clean = store.segments[0].get(CLEAN_OFFSET) != 0;
+
+            return store;
+        }
+    }
+
+    /**
+     * Returns row count stored in the header.
+     *
+     * @return row count
+     */
+    int getRowCount() {
+        return segments[0].getInt(ROW_COUNT_OFFSET);
+    }
+
+    /**
+     * Returns column count stored in the header.
+     *
+     * @return column count
+     */
+    int getColumnCount() {
+        return segments[0].getInt(COLUMN_COUNT_OFFSET);
+    }
+
+    /**
+     * Returns mine count stored in the header.
+     *
+     * @return mine count
+     */
+    int getMineCount() {
+        return segments[0].getInt(MINE_COUNT_OFFSET);
+    }
+
+    /**
+     * Returns seed stored in the header.
+     *
+     * @return seed of the mine layout
+     */
+    long getSeed() {
+        return segments[0].getLong(SEED_OFFSET);
+    }
+
+    /**
+     * Returns true if the file was closed cleanly, so counters and game
+     * state in the header are valid.
+     *
+     * @return true if the file was closed cleanly
+     */
+    boolean isClean() {
+        return clean;
+    }
+
+    /**
+     * Returns count of open tiles stored in the header.
+     *
+     * @return count of open tiles
+     */
+    int getOpenCount() {
+        return segments[0].getInt(OPEN_COUNT_OFFSET);
+    }
+
+    /**
+     * Returns count of marked tiles stored in the header.
+     *
+     * @return count of marked tiles
+     */
+    int getMarkedCount() {
+        return segments[0].getInt(MARKED_COUNT_OFFSET);
+    }
+
+    /**
+     * Returns game state stored in the header.
+     *
+     * @return state of game
+     */
+    GameState getGameState() {
+        return GameState.values()[segments[0].get(STATE_OFFSET)];
+    }
+
+    /**
+     * Marks counters and game state in the header as not valid.
+     * Called before the cells are changed.
+     */
+    void markDirty() {
+        clean = false;
+        segments[0].put(CLEAN_OFFSET, (byte) 0);
+        segments[0].force();
+    }
+
+    @Override
+    int size() {
+        return size;
+    }
+
+    @Override
+    byte get(int index) {
+        final long position = HEADER_SIZE + (long) index;
+
+        return segment(position).get((int) position & SEGMENT_MASK);
+    }
+
+    @Override
+    void set(int index, byte cell) {
+        final long position = HEADER_SIZE + (long) index;
+        final int page = index >>> PAGE_BITS;
+
+        if (saved[page] != epoch) {
+            saveForSnapshots(page);
+        }
+
+        segment(position).put((int) position & SEGMENT_MASK, cell);
+    }
+
+    /**
+     * Returns packed cell for a snapshot, which may read it on another
+     * thread.
+     *
+     * @param index index of the cell
+     * @return packed cell, -1 if the storage is closed
+     */
+    int read(int index) {
+        final MappedByteBuffer[] mapped = segments;
+        final long position = HEADER_SIZE + (long) index;
+
+        if (mapped == null) {
+            return -1;
+        }
+
+        return mapped[(int) (position >>> SEGMENT_BITS)]
+                .get((int) position & SEGMENT_MASK);
+    }
+
+    /**
+     * Returns snapshot which reads the file and keeps only pages changed
+     * after it was made.
+     *
+     * @return snapshot of the cells
+     */
+    @Override
+    synchronized CellStore snapshot() {
+        if (segments == null) {
+            throw new IllegalStateException("Field file is closed");
+        }
+
+        final MappedSnapshot snapshot = new MappedSnapshot(this, epoch + 1);
+
+        // Snapshot is registered before the storage can see its epoch.
+        snapshots.add(new WeakReference<>(snapshot));
+        epoch = snapshot.getEpoch();
+
+        return snapshot;
+    }
+
+    /**
+     * Saves the page into snapshots made since the page was last saved.
+     * Snapshots which were collected are forgotten.
+     *
+     * @param page index of the page
+     */
+    private void saveForSnapshots(int page) {
+        final long current = epoch;
+        byte[] cells = null;
+
+        for (WeakReference<MappedSnapshot> reference : snapshots) {
+            final MappedSnapshot snapshot = reference.get();
+
+            if (snapshot == null) {
+                snapshots.remove(reference);
+            }
+            else if (snapshot.getEpoch() > saved[page] &&
+                    !snapshot.hasPage(page)) {
+                if (cells == null) {
+                    cells = readPage(page);
+                }
+                snapshot.savePage(page, cells);
+            }
+        }
+
+        saved[page] = current;
+
+        // Snapshots get the page before any of its cells change.
+        VarHandle.storeStoreFence();
+    }
+
+    /**
+     * Saves all pages into snapshots which are still in use, so they do
+     * not need the file any more.
+     *
+     * @return true if any snapshot is still in use
+     */
+    private boolean saveAllForSnapshots() {
+        final List<MappedSnapshot> alive = new ArrayList<>();
+
+        for (WeakReference<MappedSnapshot> reference : snapshots) {
+            final MappedSnapshot snapshot = reference.get();
+
+            if (snapshot != null) {
+                alive.add(snapshot);
+            }
+        }
+        snapshots.clear();
+
+        for (int page = 0; page < saved.length && !alive.isEmpty(); ++page) {
+            byte[] cells = null;
+
+            for (MappedSnapshot snapshot : alive) {
+                if (!snapshot.hasPage(page)) {
+                    if (cells == null) {
+                        cells = readPage(page);
+                    }
+                    snapshot.savePage(page, cells);
+                }
+            }
+        }
+
+        return !alive.isEmpty();
+    }
+
+    /**
+     * Returns copy of the cells of a page.
+     *
+     * @param page index of the page
+     * @return cells of the page
+     */
+    private byte[] readPage(int page) {
+        final int from = page << PAGE_BITS;
+        final byte[] cells = new byte[Math.min(size - from, 1 << PAGE_BITS)];
+
+        for (int i = 0; i < cells.length; ++i) {
+            cells[i] = get(from + i);
+        }
+
+        return cells;
+    }
+
+    /**
+     * Returns mapped segment which contains specified position of the file.
+     *
+     * @param position position in the file
+     * @return mapped segment
+     */
+    private MappedByteBuffer segment(long position) {
+        if (segments == null) {
+            throw new IllegalStateException("Field file is closed");
+        }
+
+        return segments[(int) (position >>> SEGMENT_BITS)];
+    }
+
+    /**
+     * Forces all cells to the file first and then writes valid counters
+     * and game state into the header. Snapshots still in use get all
+     * pages they need. File is unmapped afterwards; if a snapshot may be
+     * reading it, the mapping is released when it is collected.
+     *
+     * @param openCount   count of open tiles
+     * @param markedCount count of marked tiles
+     * @param state       state of game
+     */
+    @Override
+    synchronized void close(int openCount, int markedCount, GameState state) {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+
+        MappedByteBuffer header = segments[0];
+        header.putInt(OPEN_COUNT_OFFSET, openCount);
+        header.putInt(MARKED_COUNT_OFFSET, markedCount);
+        header.put(STATE_OFFSET, (byte) state.ordinal());
+        header.put(CLEAN_OFFSET, (byte) 1);
+        header.force();
+        clean = true;
+
+        final boolean shared = saveAllForSnapshots();
+        final MappedByteBuffer[] mapped = segments;
+
+        segments = null;
+        if (!shared) {
+            for (MappedByteBuffer segment : mapped) {
+                unmap(segment);
+            }
+        }
+    }
+
+    /**
+     * Releases mapping of the buffer. Buffer must not be accessed
+     * afterwards.
+     *
+     * @param buffer mapped buffer
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (UNMAP == null) {
+            return;
+        }
+
+        try {
+            UNMAP.invokeExact((ByteBuffer) buffer);
+        }
+        catch (Throwable e) {
+            // Mapping is released when the buffer is collected.
+        }
+    }
+
+    /**
+     * Finds the method which releases mapping of a buffer.
+     *
+     * @return handle of the method, null if it is not available
+     */
+    private static MethodHandle findUnmap() {
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final java.lang.reflect.Field instance =
+                    unsafeClass.getDeclaredField("theUnsafe");
+            instance.setAccessible(true);
+
+            return MethodHandles.lookup().findVirtual(unsafeClass,
+                    "invokeCleaner",
+                    MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(instance.get(null));
+        }
+        catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package minesweeper.core;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Unchangeable snapshot of cells stored in a memory-mapped file.
+ *
+ * Snapshot keeps no cells of its own when it is made. Page of the file
+ * is saved into the snapshot just before the page is first changed, so
+ * the snapshot holds only pages changed since it was made and reads the
+ * others from the file. Snapshot can be read by any thread while the
+ * file is changed.
+ */
+class MappedSnapshot extends CellStore {
+
+    /**
+     * Handle for ordered access to the saved pages.
+     */
+    private static final VarHandle PAGES =
+            MethodHandles.arrayElementVarHandle(byte[][].class);
+
+    /**
+     * Storage of the file.
+     */
+    private final MappedCellStore source;
+
+    /**
+     * Saved pages, null for pages not changed since the snapshot was made.
+     */
+    private final byte[][] pages;
+
+    /**
+     * Epoch of the storage in which the snapshot was made.
+     */
+    private final long epoch;
+
+    /**
+     * Constructor.
+     *
+     * @param source storage of the file
+     * @param epoch  epoch of the storage in which the snapshot is made
+     */
+    MappedSnapshot(MappedCellStore source, long epoch) {
+        this.source = source;
+        this.epoch = epoch;
+
+        pages = new byte[pageCount(source.size())][];
+    }
+
+    /**
+     * Returns epoch of the storage in which the snapshot was made.
+     *
+     * @return epoch of the snapshot
+     */
+    long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Returns true if the page is saved in the snapshot.
+     *
+     * @param page index of the page
+     * @return true if the page is saved
+     */
+    boolean hasPage(int page) {
+        return PAGES.getAcquire(pages, page) != null;
+    }
+
+    /**
+     * Saves page of the file before it is changed.
+     *
+     * @param page  index of the page
+     * @param cells cells of the page, never changed afterwards
+     */
+    void savePage(int page, byte[] cells) {
+        PAGES.setRelease(pages, page, cells);
+    }
+
+    @Override
+    int size() {
+        return source.size();
+    }
+
+    /**
+     * Returns packed cell. Cell read from the file is used only if its
+     * page was not saved meanwhile, because the storage saves the page
+     * before it changes the cell.
+     *
+     * @param index index of the cell
+     * @return packed cell
+     */
+    @Override
+    byte get(int index) {
+        final int page = index >>> PAGE_BITS;
+        byte[] saved = (byte[]) PAGES.getAcquire(pages, page);
+
+        if (saved == null) {
+            final int cell = source.read(index);
+
+            VarHandle.loadLoadFence();
+            saved = (byte[]) PAGES.getAcquire(pages, page);
+            if (saved == null) {
+                return (byte) cell;
+            }
+        }
+
+        return saved[index & PAGE_MASK];
+    }
+
+    @Override
+    void set(int index, byte cell) {
+        throw new IllegalStateException("Snapshot can not be changed");
+    }
+
+    @Override
+    CellStore snapshot() {
+        return this;
+    }
+}
@@ -4,4 +4,14 @@ package minesweeper.core;
  * Mine tile.
  */
 public class Mine extends Tile {
+
+    /**
+     * Constructor.
+     *
+     * @param field field which owns the mine
+     * @param index index of the mine in the field
+     */
+    Mine(Field field, int index) {
+        super(field, index);
+    }
 }
@@ -0,0 +1,113 @@
+package minesweeper.core;
+
+/**
+ * Move of a player on a tile of the field.
+ */
+public class Move {
+
+    /**
+     * Move types.
+     */
+    public enum Type {
+        /**
+         * Opens the tile.
+         */
+        OPEN,
+        /**
+         * Marks or unmarks the tile.
+         */
+        MARK,
+        /**
+         * Opens tiles adjacent to a satisfied clue.
+         */
+        CHORD
+    }
+
+    /**
+     * Move type.
+     */
+    private final Type type;
+
+    /**
+     * Row number of the tile.
+     */
+    private final int row;
+
+    /**
+     * Column number of the tile.
+     */
+    private final int column;
+
+    /**
+     * Constructor.
+     *
+     * @param type   move type
+     * @param row    row number of the tile
+     * @param column column number of the tile
+     */
+    public Move(Type type, int row, int column) {
+        this.type = type;
+        this.row = row;
+        this.column = column;
+    }
+
+    /**
+     * Returns move which opens the tile.
+     *
+     * @param row    row number of the tile
+     * @param column column number of the tile
+     * @return open move
+     */
+    public static Move open(int row, int column) {
+        return new Move(Type.OPEN, row, column);
+    }
+
+    /**
+     * Returns move which marks or unmarks the tile.
+     *
+     * @param row    row number of the tile
+     * @param column column number of the tile
+     * @return mark move
+     */
+    public static Move mark(int row, int column) {
+        return new Move(Type.MARK, row, column);
+    }
+
+    /**
+     * Returns move which opens tiles adjacent to a satisfied clue.
+     *
+     * @param row    row number of the clue
+     * @param column column number of the clue
+     * @return chord move
+     */
+    public static Move chord(int row, int column) {
+        return new Move(Type.CHORD, row, column);
+    }
+
+    /**
+     * Returns move type.
+     *
+     * @return move type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns row number of the tile.
+     *
+     * @return row number of the tile
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * Returns column number of the tile.
+     *
+     * @return column number of the tile
+     */
+    public int getColumn() {
+        return column;
+    }
+}
@@ -0,0 +1,212 @@
+package minesweeper.core;
+
+import java.util.Arrays;
+
+/**
+ * Journal of moves made on a field.
+ *
+ * Journal stores only tiles which were changed by a move. Every change is
+ * one long which packs the tile index with the packed state before and
+ * after the change, so the journal grows with the count of changed tiles
+ * and never with the size of the field. Moves are delimited by offsets
+ * into the changes. Undone moves are kept for redo until a new move
+ * changes a tile.
+ */
+class MoveJournal {
+
+    /**
+     * Shift of the tile index in a change.
+     */
+    private static final int INDEX_SHIFT = 16;
+
+    /**
+     * Shift of the state before the change.
+     */
+    private static final int FROM_SHIFT = 8;
+
+    /**
+     * Mask of a packed state in a change.
+     */
+    private static final int STATE_MASK = 0xFF;
+
+    /**
+     * Packed changes of all recorded moves and of the current move.
+     */
+    private long[] changes = new long[64];
+
+    /**
+     * Count of changes.
+     */
+    private int changeCount;
+
+    /**
+     * Offsets of the ends of recorded moves in the changes.
+     */
+    private int[] moveEnds = new int[16];
+
+    /**
+     * Game states set by recorded moves, null if a move did not end
+     * the game.
+     */
+    private GameState[] endStates = new GameState[16];
+
+    /**
+     * Count of moves which can be undone.
+     */
+    private int moveCount;
+
+    /**
+     * Count of recorded moves, including undone moves which can be redone.
+     */
+    private int recordedCount;
+
+    /**
+     * Records change of a tile made by the current move.
+     *
+     * @param index index of the tile
+     * @param from  packed state before the change
+     * @param to    packed state after the change
+     */
+    void add(int index, int from, int to) {
+        discardUndone();
+
+        if (changeCount == changes.length) {
+            changes = Arrays.copyOf(changes, changeCount * 2);
+        }
+        changes[changeCount++] =
+                ((long) index << INDEX_SHIFT) | (from << FROM_SHIFT) | to;
+    }
+
+    /**
+     * Ends the current move. Move which did not change anything is not
+     * recorded.
+     *
+     * @param endState game state set by the move, null if the move did not
+     *                 end the game
+     */
+    void endMove(GameState endState) {
+        final boolean changed = moveCount == recordedCount &&
+                changeCount > getStart(moveCount);
+
+        if (!changed && endState == null) {
+            return;
+        }
+
+        discardUndone();
+
+        if (moveCount == moveEnds.length) {
+            moveEnds = Arrays.copyOf(moveEnds, moveCount * 2);
+            endStates = Arrays.copyOf(endStates, moveCount * 2);
+        }
+        moveEnds[moveCount] = changeCount;
+        endStates[moveCount] = endState;
+        recordedCount = ++moveCount;
+    }
+
+    /**
+     * Returns true if there is a move to undo.
+     *
+     * @return true if there is a move to undo
+     */
+    boolean canUndo() {
+        return moveCount > 0;
+    }
+
+    /**
+     * Returns true if there is an undone move to redo.
+     *
+     * @return true if there is a move to redo
+     */
+    boolean canRedo() {
+        return moveCount < recordedCount;
+    }
+
+    /**
+     * Steps back by one move.
+     *
+     * @return number of the undone move
+     */
+    int undo() {
+        return --moveCount;
+    }
+
+    /**
+     * Steps forward by one move.
+     *
+     * @return number of the redone move
+     */
+    int redo() {
+        return moveCount++;
+    }
+
+    /**
+     * Returns offset of the first change of a move.
+     *
+     * @param move number of the move
+     * @return offset of the first change
+     */
+    int getStart(int move) {
+        return move == 0 ? 0 : moveEnds[move - 1];
+    }
+
+    /**
+     * Returns offset after the last change of a move.
+     *
+     * @param move number of the move
+     * @return offset after the last change
+     */
+    int getEnd(int move) {
+        return moveEnds[move];
+    }
+
+    /**
+     * Returns game state set by a move.
+     *
+     * @param move number of the move
+     * @return game state set by the move, null if the move did not end
+     * the game
+     */
+    GameState getEndState(int move) {
+        return endStates[move];
+    }
+
+    /**
+     * Returns index of the tile changed by a change.
+     *
+     * @param offset offset of the change
+     * @return index of the tile
+     */
+    int getIndex(int offset) {
+        return (int) (changes[offset] >>> INDEX_SHIFT);
+    }
+
+    /**
+     * Returns packed state of the tile before a change.
+     *
+     * @param offset offset of the change
+     * @return packed state before the change
+     */
+    int getFrom(int offset) {
+        return (int) (changes[offset] >>> FROM_SHIFT) & STATE_MASK;
+    }
+
+    /**
+     * Returns packed state of the tile after a change.
+     *
+     * @param offset offset of the change
+     * @return packed state after the change
+     */
+    int getTo(int offset) {
+        return (int) changes[offset] & STATE_MASK;
+    }
+
+    /**
+     * Discards undone moves, so they can not be redone anymore.
+     */
+    private void discardUndone() {
+        if (moveCount < recordedCount) {
+            changeCount = getStart(moveCount);
+            recordedCount = moveCount;
+        }
+    }
+}
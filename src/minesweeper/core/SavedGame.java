@@ -0,0 +1,316 @@
+package minesweeper.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Game saved in a file.
+ *
+ * File starts with a header which describes the field, the game state and
+ * the elapsed time, followed by a bitmap of mines with one bit per tile
+ * and by tile states with two bits per tile. Mine layout is stored instead
+ * of being generated again from the seed, so saved games stay valid when
+ * the generator changes. Clues are not stored, they are computed again
+ * when the game is loaded.
+ */
+public class SavedGame {
+
+    /**
+     * Magic number at the start of the file.
+     */
+    private static final long MAGIC = 0x4D494E4553415645L;
+
+    /**
+     * Version of the file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Size of the header in bytes.
+     */
+    private static final int HEADER_SIZE = 48;
+
+    /**
+     * Size of the buffer used to read and write the file.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Shift of the tile state in a packed cell.
+     */
+    private static final int STATE_SHIFT = 5;
+
+    /**
+     * Loaded field.
+     */
+    private final Field field;
+
+    /**
+     * Elapsed playing time in milliseconds.
+     */
+    private final long elapsedMillis;
+
+    /**
+     * Constructor.
+     *
+     * @param field         loaded field
+     * @param elapsedMillis elapsed playing time in milliseconds
+     */
+    private SavedGame(Field field, long elapsedMillis) {
+        this.field = field;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Returns loaded field.
+     *
+     * @return loaded field
+     */
+    public Field getField() {
+        return field;
+    }
+
+    /**
+     * Returns elapsed playing time of the game.
+     *
+     * @return elapsed playing time in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Saves the game into the file. File is written next to the target
+     * path first and moved to it once it is complete, so the target always
+     * holds either the previous or the new game. Concurrent field should
+     * be copied first, so the saved game does not contain a part of a move.
+     *
+     * @param file          path of the file
+     * @param field         field of the game
+     * @param elapsedMillis elapsed playing time in milliseconds
+     * @throws IOException if the file can not be written
+     */
+    public static void save(Path file, Field field, long elapsedMillis)
+            throws IOException {
+        final Path temporaryFile =
+                file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporaryFile,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            write(channel, field, elapsedMillis);
+            channel.force(false);
+        }
+        catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporaryFile);
+            throw e;
+        }
+
+        Files.move(temporaryFile, file,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads the game from the file.
+     *
+     * @param file path of the file
+     * @return loaded game
+     * @throws IOException if the file can not be read or is not valid
+     */
+    public static SavedGame load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException(file + " is not a saved game");
+            }
+            read(channel, buffer, file);
+
+            if (buffer.getLong() != MAGIC) {
+                throw new IOException(file + " is not a saved game");
+            }
+
+            final int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException(file + " has unsupported version " +
+                        version);
+            }
+
+            final int rowCount = buffer.getInt();
+            final int columnCount = buffer.getInt();
+            final int mineCount = buffer.getInt();
+            final long seed = buffer.getLong();
+            final long elapsedMillis = buffer.getLong();
+            final int stateOrdinal = buffer.get();
+
+            final long size = (long) rowCount * columnCount;
+            if (rowCount <= 0 || columnCount <= 0 || size > Integer.MAX_VALUE ||
+                    channel.size() != HEADER_SIZE + (size + 7) / 8 +
+                            (size + 3) / 4 ||
+                    stateOrdinal < 0 ||
+                    stateOrdinal >= GameState.values().length) {
+                throw new IOException(file + " is truncated or damaged");
+            }
+            buffer.position(HEADER_SIZE);
+
+            final CellStore cells = new ArrayCellStore((int) size);
+            int mines = 0;
+
+            for (int index = 0; index < size; index += 8) {
+                if (!buffer.hasRemaining()) {
+                    read(channel, buffer, file);
+                }
+
+                final int bits = buffer.get() & 0xFF;
+                final int last = (int) Math.min(size, index + 8);
+
+                for (int actIndex = index; actIndex < last; ++actIndex) {
+                    if ((bits & (1 << (actIndex - index))) != 0) {
+                        cells.set(actIndex, (byte) Field.MINE_BIT);
+                        ++mines;
+                    }
+                }
+            }
+
+            for (int index = 0; index < size; index += 4) {
+                if (!buffer.hasRemaining()) {
+                    read(channel, buffer, file);
+                }
+
+                final int bits = buffer.get() & 0xFF;
+                final int last = (int) Math.min(size, index + 4);
+
+                for (int actIndex = index; actIndex < last; ++actIndex) {
+                    final int state = (bits >>> ((actIndex - index) * 2)) & 3;
+
+                    if (state != 0) {
+                        if (state > Field.MARKED >>> STATE_SHIFT) {
+                            throw new IOException(file + " is truncated or damaged");
+                        }
+
+                        cells.set(actIndex, (byte) (cells.get(actIndex) |
+                                (state << STATE_SHIFT)));
+                    }
+                }
+            }
+
+            if (mines != mineCount) {
+                throw new IOException(file + " is truncated or damaged");
+            }
+
+            final Field field = Field.restore(rowCount, columnCount, mineCount,
+                    seed, cells);
+            if (field.getState() != GameState.values()[stateOrdinal]) {
+                throw new IOException(file + " is truncated or damaged");
+            }
+
+            return new SavedGame(field, elapsedMillis);
+        }
+    }
+
+    /**
+     * Writes the header, the mine bitmap and the tile states.
+     *
+     * @param channel       channel of the file
+     * @param field         field of the game
+     * @param elapsedMillis elapsed playing time in milliseconds
+     * @throws IOException if the file can not be written
+     */
+    private static void write(FileChannel channel, Field field,
+                              long elapsedMillis) throws IOException {
+        final CellStore cells = field.getCells();
+        final int size = cells.size();
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        buffer.putLong(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(field.getRowCount());
+        buffer.putInt(field.getColumnCount());
+        buffer.putInt(field.getMineCount());
+        buffer.putLong(field.getSeed());
+        buffer.putLong(elapsedMillis);
+        buffer.put((byte) field.getState().ordinal());
+        buffer.position(HEADER_SIZE);
+
+        for (int index = 0; index < size; index += 8) {
+            final int last = Math.min(size, index + 8);
+            int bits = 0;
+
+            for (int actIndex = index; actIndex < last; ++actIndex) {
+                if ((cells.get(actIndex) & Field.MINE_BIT) != 0) {
+                    bits |= 1 << (actIndex - index);
+                }
+            }
+
+            if (!buffer.hasRemaining()) {
+                flush(channel, buffer);
+            }
+            buffer.put((byte) bits);
+        }
+
+        for (int index = 0; index < size; index += 4) {
+            final int last = Math.min(size, index + 4);
+            int bits = 0;
+
+            for (int actIndex = index; actIndex < last; ++actIndex) {
+                bits |= ((cells.get(actIndex) & Field.STATE_MASK) >>>
+                        STATE_SHIFT) << ((actIndex - index) * 2);
+            }
+
+            if (!buffer.hasRemaining()) {
+                flush(channel, buffer);
+            }
+            buffer.put((byte) bits);
+        }
+
+        flush(channel, buffer);
+    }
+
+    /**
+     * Writes all bytes of the buffer and clears it.
+     *
+     * @param channel channel of the file
+     * @param buffer  buffer to write
+     * @throws IOException if the file can not be written
+     */
+    private static void flush(FileChannel channel, ByteBuffer buffer)
+            throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Reads next bytes of the file into the buffer and prepares them for
+     * reading.
+     *
+     * @param channel channel of the file
+     * @param buffer  buffer to read into
+     * @param file    path of the file
+     * @throws IOException if the file can not be read or ends too early
+     */
+    private static void read(FileChannel channel, ByteBuffer buffer, Path file)
+            throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+
+        if (!buffer.hasRemaining()) {
+            throw new IOException(file + " is truncated or damaged");
+        }
+    }
+}
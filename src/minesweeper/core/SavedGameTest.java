@@ -0,0 +1,95 @@
+package minesweeper.core;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SavedGameTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void loadRestoresGame() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("game.save");
+        Field field = new Field(37, 53, 300, 9);
+        Random random = new Random(9);
+
+        for (int move = 0; move < 200; ++move) {
+            int row = random.nextInt(37);
+            int column = random.nextInt(53);
+
+            if (random.nextInt(3) == 0) {
+                field.markTile(row, column);
+            }
+            else if (!(field.getTile(row, column) instanceof Mine)) {
+                field.openTile(row, column);
+            }
+        }
+
+        SavedGame.save(file, field, 123456);
+        SavedGame game = SavedGame.load(file);
+
+        assertEquals(123456, game.getElapsedMillis());
+        assertEquals(field.getMineCount(), game.getField().getMineCount());
+        assertEquals(field.getSeed(), game.getField().getSeed());
+        for (int row = 0; row < 37; ++row) {
+            for (int column = 0; column < 53; ++column) {
+                Tile expected = field.getTile(row, column);
+                Tile actual = game.getField().getTile(row, column);
+
+                assertEquals(expected.getState(), actual.getState());
+                assertEquals(expected instanceof Mine, actual instanceof Mine);
+                if (expected instanceof Clue) {
+                    assertEquals(((Clue) expected).getValue(),
+                            ((Clue) actual).getValue());
+                }
+            }
+        }
+        for (Tile.State state : Tile.State.values()) {
+            assertEquals(field.getNumberOf(state),
+                    game.getField().getNumberOf(state));
+        }
+        assertFalse(Files.exists(file.resolveSibling("game.save.tmp")));
+    }
+
+    @Test
+    public void loadKeepsFailedGame() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("game.save");
+        Field field = new Field(9, 9, 10, 1);
+
+        for (int index = 0; field.getState() == GameState.PLAYING; ++index) {
+            if (field.getTile(index / 9, index % 9) instanceof Mine) {
+                field.openTile(index / 9, index % 9);
+            }
+        }
+
+        SavedGame.save(file, field, 0);
+
+        assertEquals(GameState.FAILED,
+                SavedGame.load(file).getField().getState());
+    }
+
+    @Test(expected = IOException.class)
+    public void loadRejectsDamagedFile() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("game.save");
+
+        SavedGame.save(file, new Field(16, 30, 99, 2), 0);
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {(byte) 0xFF}), 48);
+        }
+
+        SavedGame.load(file);
+    }
+}
@@ -2,6 +2,9 @@ package minesweeper.core;
 
 /**
  * Tile of a field.
+ *
+ * Tile is only a lightweight view of one cell of the field. The state of
+ * the cell is stored in the packed cell array of the owning field.
  */
 public abstract class Tile {
 
@@ -24,15 +27,24 @@ public abstract class Tile {
     }
 
     /**
-     * Tile state.
+     * Field which owns the tile.
      */
-    private State state;
+    private final Field field;
+
+    /**
+     * Index of the tile in the field.
+     */
+    private final int index;
 
     /**
      * Constructor.
+     *
+     * @param field field which owns the tile
+     * @param index index of the tile in the field
      */
-    public Tile() {
-        state = State.CLOSED;
+    Tile(Field field, int index) {
+        this.field = field;
+        this.index = index;
     }
 
     /**
@@ -41,7 +53,7 @@ public abstract class Tile {
      * @return current state of this tile
      */
     public State getState() {
-        return state;
+        return field.getTileState(index);
     }
 
     /**
@@ -50,6 +62,24 @@ public abstract class Tile {
      * @param state current state of this tile
      */
     void setState(State state) {
-        this.state = state;
+        field.setTileState(index, state);
+    }
+
+    /**
+     * Returns field which owns the tile.
+     *
+     * @return field which owns the tile
+     */
+    Field getField() {
+        return field;
+    }
+
+    /**
+     * Returns index of the tile in the field.
+     *
+     * @return index of the tile in the field
+     */
+    int getIndex() {
+        return index;
     }
 }
@@ -0,0 +1,179 @@
+package minesweeper.solver;
+
+import java.util.Arrays;
+
+/**
+ * Canonical form of a frontier component, used as a key of
+ * {@link SolverCache}.
+ *
+ * Pattern consists of positions of the closed tiles of the component and
+ * of positions and remaining mine counts of its clues. Marks are already
+ * subtracted from the clues, so components which differ only in marks
+ * outside of the frontier have the same pattern. Positions are taken
+ * relative to the bounding box in each of the eight rotations and
+ * reflections, and the smallest encoding is the canonical one, so
+ * a pattern matches all its rotated and reflected copies.
+ */
+class ComponentPattern {
+
+    /**
+     * Value of a closed tile in the encoding.
+     */
+    private static final int TILE = 15;
+
+    /**
+     * Shift of the row in the encoding of a point.
+     */
+    private static final int ROW_SHIFT = 36;
+
+    /**
+     * Shift of the column in the encoding of a point.
+     */
+    private static final int COLUMN_SHIFT = 4;
+
+    /**
+     * Sorted canonical encoding of all points of the pattern.
+     */
+    private final long[] codes;
+
+    /**
+     * Hash code of the encoding.
+     */
+    private final int hash;
+
+    /**
+     * Canonical position of every tile of the component.
+     */
+    private final int[] order;
+
+    /**
+     * Constructor.
+     *
+     * @param tiles       indexes of the closed tiles in the field
+     * @param clues       indexes of the clues in the field
+     * @param targets     remaining mine count of every clue
+     * @param columnCount column count of the field
+     */
+    ComponentPattern(int[] tiles, int[] clues, int[] targets, int columnCount) {
+        long[] bestCodes = null;
+        long[] bestTileCodes = null;
+
+        for (int symmetry = 0; symmetry < 8; ++symmetry) {
+            final long[] tileCodes = new long[tiles.length];
+            final long[] allCodes = new long[tiles.length + clues.length];
+
+            int minRow = Integer.MAX_VALUE;
+            int minColumn = Integer.MAX_VALUE;
+            for (int index : tiles) {
+                minRow = Math.min(minRow, row(index, columnCount, symmetry));
+                minColumn = Math.min(minColumn, column(index, columnCount, symmetry));
+            }
+            for (int index : clues) {
+                minRow = Math.min(minRow, row(index, columnCount, symmetry));
+                minColumn = Math.min(minColumn, column(index, columnCount, symmetry));
+            }
+
+            for (int i = 0; i < tiles.length; ++i) {
+                tileCodes[i] = encode(tiles[i], TILE, columnCount, symmetry,
+                        minRow, minColumn);
+                allCodes[i] = tileCodes[i];
+            }
+            for (int i = 0; i < clues.length; ++i) {
+                allCodes[tiles.length + i] = encode(clues[i], targets[i],
+                        columnCount, symmetry, minRow, minColumn);
+            }
+            Arrays.sort(allCodes);
+
+            if (bestCodes == null || Arrays.compare(allCodes, bestCodes) < 0) {
+                bestCodes = allCodes;
+                bestTileCodes = tileCodes;
+            }
+        }
+
+        codes = bestCodes;
+        hash = Arrays.hashCode(codes);
+
+        final long[] sortedTileCodes = bestTileCodes.clone();
+        Arrays.sort(sortedTileCodes);
+
+        order = new int[tiles.length];
+        for (int i = 0; i < tiles.length; ++i) {
+            order[i] = Arrays.binarySearch(sortedTileCodes, bestTileCodes[i]);
+        }
+    }
+
+    /**
+     * Returns canonical position of a tile of the component.
+     *
+     * @param tile position of the tile in the component
+     * @return canonical position of the tile
+     */
+    int getCanonicalPosition(int tile) {
+        return order[tile];
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof ComponentPattern)) {
+            return false;
+        }
+
+        ComponentPattern pattern = (ComponentPattern) o;
+
+        return hash == pattern.hash && Arrays.equals(codes, pattern.codes);
+    }
+
+    /**
+     * Returns encoding of a point relative to the bounding box.
+     *
+     * @param index       index of the tile in the field
+     * @param value       remaining mine count of a clue or TILE
+     * @param columnCount column count of the field
+     * @param symmetry    number of the rotation or reflection
+     * @param minRow      first row of the bounding box
+     * @param minColumn   first column of the bounding box
+     * @return encoding of the point
+     */
+    private static long encode(int index, int value, int columnCount,
+                               int symmetry, int minRow, int minColumn) {
+        return ((long) (row(index, columnCount, symmetry) - minRow) << ROW_SHIFT) |
+                ((long) (column(index, columnCount, symmetry) - minColumn)
+                        << COLUMN_SHIFT) |
+                value;
+    }
+
+    /**
+     * Returns row of a tile after rotation or reflection.
+     *
+     * @param index       index of the tile in the field
+     * @param columnCount column count of the field
+     * @param symmetry    number of the rotation or reflection
+     * @return transformed row
+     */
+    private static int row(int index, int columnCount, int symmetry) {
+        final int row = (symmetry & 4) == 0 ?
+                index / columnCount : index % columnCount;
+
+        return (symmetry & 1) == 0 ? row : -row;
+    }
+
+    /**
+     * Returns column of a tile after rotation or reflection.
+     *
+     * @param index       index of the tile in the field
+     * @param columnCount column count of the field
+     * @param symmetry    number of the rotation or reflection
+     * @return transformed column
+     */
+    private static int column(int index, int columnCount, int symmetry) {
+        final int column = (symmetry & 4) == 0 ?
+                index % columnCount : index / columnCount;
+
+        return (symmetry & 2) == 0 ? column : -column;
+    }
+}
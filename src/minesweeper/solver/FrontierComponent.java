@@ -0,0 +1,282 @@
+package minesweeper.solver;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Independent part of the frontier: closed tiles next to open clues which
+ * are connected through shared clues.
+ *
+ * Component enumerates all mine layouts of its tiles which satisfy its
+ * clues by backtracking. For every count of mines it counts the layouts
+ * and, for every tile, the layouts with a mine on the tile. Counts are
+ * scaled so that the largest layout count is one, which keeps them inside
+ * of the range of double for components with many layouts.
+ */
+class FrontierComponent extends RecursiveAction {
+
+    /**
+     * Version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Indexes of the tiles of the component in the field.
+     */
+    private final int[] tiles;
+
+    /**
+     * Indexes of the clues of every constraint in the field.
+     */
+    private final int[] clues;
+
+    /**
+     * Tiles of every constraint, as positions in the component.
+     */
+    private final int[][] constraintTiles;
+
+    /**
+     * Count of mines required by every constraint.
+     */
+    private final int[] targets;
+
+    /**
+     * Constraints of every tile.
+     */
+    private final int[][] tileConstraints;
+
+    /**
+     * Mines already placed on tiles of every constraint.
+     */
+    private final int[] placedMines;
+
+    /**
+     * Tiles of every constraint which are not decided yet.
+     */
+    private final int[] undecidedTiles;
+
+    /**
+     * Mine layout being built, one flag per tile.
+     */
+    private final boolean[] layout;
+
+    /**
+     * Canonical pattern of the component, null until it is needed.
+     */
+    private ComponentPattern pattern;
+
+    /**
+     * Time of the enumeration in nanoseconds.
+     */
+    private long enumerationNanos;
+
+    /**
+     * Count of layouts for every count of mines.
+     */
+    private double[] layoutCounts;
+
+    /**
+     * Count of layouts with a mine on the tile for every tile and count
+     * of mines.
+     */
+    private double[][] mineCounts;
+
+    /**
+     * Constructor. Tiles must be ordered so that tiles of the same
+     * constraint are close to each other, which lets the backtracking
+     * reject a wrong layout early.
+     *
+     * @param tiles           indexes of the tiles in the field
+     * @param clues           indexes of the clues of every constraint
+     * @param constraintTiles tiles of every constraint as positions
+     *                        in the component
+     * @param targets         count of mines required by every constraint
+     */
+    FrontierComponent(int[] tiles, int[] clues, int[][] constraintTiles,
+                      int[] targets) {
+        this.tiles = tiles;
+        this.clues = clues;
+        this.constraintTiles = constraintTiles;
+        this.targets = targets;
+
+        final int[] constraintCounts = new int[tiles.length];
+        for (int[] constraint : constraintTiles) {
+            for (int tile : constraint) {
+                ++constraintCounts[tile];
+            }
+        }
+
+        tileConstraints = new int[tiles.length][];
+        for (int tile = 0; tile < tiles.length; ++tile) {
+            tileConstraints[tile] = new int[constraintCounts[tile]];
+            constraintCounts[tile] = 0;
+        }
+        for (int constraint = 0; constraint < constraintTiles.length; ++constraint) {
+            for (int tile : constraintTiles[constraint]) {
+                tileConstraints[tile][constraintCounts[tile]++] = constraint;
+            }
+        }
+
+        placedMines = new int[targets.length];
+        undecidedTiles = new int[targets.length];
+        layout = new boolean[tiles.length];
+    }
+
+    /**
+     * Enumerates the layouts.
+     */
+    @Override
+    protected void compute() {
+        final long start = System.nanoTime();
+
+        layoutCounts = new double[tiles.length + 1];
+        mineCounts = new double[tiles.length][tiles.length + 1];
+
+        for (int constraint = 0; constraint < targets.length; ++constraint) {
+            undecidedTiles[constraint] = constraintTiles[constraint].length;
+        }
+
+        place(0, 0);
+
+        double max = 0;
+        for (double count : layoutCounts) {
+            max = Math.max(max, count);
+        }
+
+        if (max > 0) {
+            for (int mines = 0; mines < layoutCounts.length; ++mines) {
+                layoutCounts[mines] /= max;
+                for (double[] tileCounts : mineCounts) {
+                    tileCounts[mines] /= max;
+                }
+            }
+        }
+
+        enumerationNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Returns canonical pattern of the component.
+     *
+     * @param columnCount column count of the field
+     * @return canonical pattern
+     */
+    ComponentPattern getPattern(int columnCount) {
+        if (pattern == null) {
+            pattern = new ComponentPattern(tiles, clues, targets, columnCount);
+        }
+
+        return pattern;
+    }
+
+    /**
+     * Returns time of the enumeration.
+     *
+     * @return time of the enumeration in nanoseconds
+     */
+    long getEnumerationNanos() {
+        return enumerationNanos;
+    }
+
+    /**
+     * Sets counts of layouts found earlier instead of enumerating them.
+     *
+     * @param layoutCounts scaled layout counts indexed by count of mines
+     * @param mineCounts   scaled mine counts of every tile
+     */
+    void setCounts(double[] layoutCounts, double[][] mineCounts) {
+        this.layoutCounts = layoutCounts;
+        this.mineCounts = mineCounts;
+    }
+
+    /**
+     * Returns indexes of the tiles in the field.
+     *
+     * @return indexes of the tiles
+     */
+    int[] getTiles() {
+        return tiles;
+    }
+
+    /**
+     * Returns scaled count of layouts for every count of mines.
+     *
+     * @return layout counts indexed by count of mines
+     */
+    double[] getLayoutCounts() {
+        return layoutCounts;
+    }
+
+    /**
+     * Returns scaled count of layouts with a mine on the tile for every
+     * count of mines.
+     *
+     * @param tile position of the tile in the component
+     * @return mine counts indexed by count of mines
+     */
+    double[] getMineCounts(int tile) {
+        return mineCounts[tile];
+    }
+
+    /**
+     * Decides the tile and all tiles after it.
+     *
+     * @param tile  position of the decided tile
+     * @param mines count of mines on the tiles before it
+     */
+    private void place(int tile, int mines) {
+        if (tile == tiles.length) {
+            layoutCounts[mines] += 1;
+            for (int actTile = 0; actTile < tiles.length; ++actTile) {
+                if (layout[actTile]) {
+                    mineCounts[actTile][mines] += 1;
+                }
+            }
+            return;
+        }
+
+        for (int mine = 0; mine <= 1; ++mine) {
+            if (fits(tile, mine)) {
+                layout[tile] = mine == 1;
+                apply(tile, mine, -1);
+                place(tile + 1, mines + mine);
+                apply(tile, mine, 1);
+            }
+        }
+        layout[tile] = false;
+    }
+
+    /**
+     * Returns true if every constraint of the tile can still be satisfied
+     * when the tile gets specified value.
+     *
+     * @param tile position of the tile
+     * @param mine 1 for a mine, 0 for a safe tile
+     * @return true if the value fits
+     */
+    private boolean fits(int tile, int mine) {
+        for (int constraint : tileConstraints[tile]) {
+            final int placed = placedMines[constraint] + mine;
+
+            if (placed > targets[constraint] ||
+                    placed + undecidedTiles[constraint] - 1 < targets[constraint]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Places or removes the value of the tile in its constraints.
+     *
+     * @param tile      position of the tile
+     * @param mine      1 for a mine, 0 for a safe tile
+     * @param direction -1 to place the value, 1 to remove it
+     */
+    private void apply(int tile, int mine, int direction) {
+        for (int constraint : tileConstraints[tile]) {
+            placedMines[constraint] -= direction * mine;
+            undecidedTiles[constraint] += direction;
+        }
+    }
+}
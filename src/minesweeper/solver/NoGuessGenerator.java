@@ -0,0 +1,221 @@
+package minesweeper.solver;
+
+import minesweeper.core.Field;
+import minesweeper.core.GameState;
+import minesweeper.core.Move;
+import minesweeper.core.Tile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generator of fields which can be solved without guessing.
+ *
+ * Candidate fields have no mines around the start tile, which is opened.
+ * Candidate is accepted if solvers open the whole field from there:
+ * {@link Solver} deduces what it can from clues, and when it is stuck,
+ * {@link ProbabilitySolver} opens tiles which are safe in every layout,
+ * also when the total count of mines decides them. Candidates are
+ * generated and checked speculatively by one task per thread of the pool.
+ * First accepted candidate ends all tasks. Enumerated frontier components
+ * are cached across attempts and across generated fields, because small
+ * components repeat often.
+ */
+public class NoGuessGenerator {
+
+    /**
+     * Default maximal count of candidates per generated field.
+     */
+    private static final int DEFAULT_MAX_ATTEMPTS = 10000;
+
+    /**
+     * Capacity of the cache of enumerated components.
+     */
+    private static final int CACHE_CAPACITY = 4096;
+
+    /**
+     * Pool which checks candidates.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Maximal count of candidates per generated field.
+     */
+    private final int maxAttempts;
+
+    /**
+     * Cache of enumerated components shared by all attempts.
+     */
+    private final SolverCache cache = new SolverCache(CACHE_CAPACITY);
+
+    /**
+     * Constructor. Candidates are checked on the common pool.
+     */
+    public NoGuessGenerator() {
+        this(ForkJoinPool.commonPool(), DEFAULT_MAX_ATTEMPTS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param pool        pool which checks candidates
+     * @param maxAttempts maximal count of candidates per generated field
+     */
+    public NoGuessGenerator(ForkJoinPool pool, int maxAttempts) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException(
+                    "Count of attempts must be positive");
+        }
+
+        this.pool = pool;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Returns cache of enumerated components shared by all attempts.
+     *
+     * @return cache of enumerated components
+     */
+    public SolverCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Generates field which can be solved without guessing from the open
+     * start tile.
+     *
+     * @param rowCount    row count
+     * @param columnCount column count
+     * @param mineCount   mine count
+     * @param startRow    row of the start tile
+     * @param startColumn column of the start tile
+     * @return field with open start tile
+     * @throws IllegalStateException if no candidate was accepted
+     */
+    public Field generate(int rowCount, int columnCount, int mineCount,
+                          int startRow, int startColumn) {
+        return generate(rowCount, columnCount, mineCount, startRow, startColumn,
+                ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Generates field which can be solved without guessing from the open
+     * start tile. Seeds of candidates are taken from
+     * {@link Field#seeds(long)}. Which candidate is accepted first depends
+     * on timing of the tasks, so the result is reproducible only on
+     * a pool with one thread.
+     *
+     * @param rowCount    row count
+     * @param columnCount column count
+     * @param mineCount   mine count
+     * @param startRow    row of the start tile
+     * @param startColumn column of the start tile
+     * @param masterSeed  master seed of candidates
+     * @return field with open start tile
+     * @throws IllegalStateException if no candidate was accepted
+     */
+    public Field generate(int rowCount, int columnCount, int mineCount,
+                          int startRow, int startColumn, long masterSeed) {
+        final PrimitiveIterator.OfLong seeds =
+                Field.seeds(masterSeed).iterator();
+        final AtomicInteger attempts = new AtomicInteger();
+        final AtomicBoolean finished = new AtomicBoolean();
+        final List<Callable<Field>> tasks = new ArrayList<>();
+
+        for (int i = 0; i < pool.getParallelism(); ++i) {
+            tasks.add(() -> {
+                while (!finished.get() &&
+                        attempts.getAndIncrement() < maxAttempts) {
+                    final long seed;
+                    synchronized (seeds) {
+                        seed = seeds.nextLong();
+                    }
+
+                    final Field candidate = new Field(rowCount, columnCount,
+                            mineCount, seed, startRow, startColumn);
+                    candidate.openTile(startRow, startColumn);
+
+                    if (isSolvable(candidate.copy(), finished) &&
+                            finished.compareAndSet(false, true)) {
+                        return candidate;
+                    }
+                }
+
+                throw new IllegalStateException("No field without guessing" +
+                        " found in " + maxAttempts + " attempts");
+            });
+        }
+
+        try {
+            return pool.invokeAny(tasks);
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause().getMessage(),
+                    e.getCause());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Generation was interrupted", e);
+        }
+        finally {
+            finished.set(true);
+        }
+    }
+
+    /**
+     * Plays the field by deductions only.
+     *
+     * @param field    played field
+     * @param finished flag which ends the play early
+     * @return true if the field was solved
+     */
+    private boolean isSolvable(Field field, AtomicBoolean finished) {
+        final Solver solver = new Solver(field);
+
+        while (field.getState() == GameState.PLAYING && !finished.get()) {
+            List<Move> moves = solver.solve();
+
+            if (moves.isEmpty()) {
+                moves = safeMoves(field);
+                if (moves.isEmpty()) {
+                    return false;
+                }
+            }
+
+            field.applyMoves(moves);
+        }
+
+        return field.getState() == GameState.SOLVED;
+    }
+
+    /**
+     * Returns openings of closed tiles which have no mine in any layout.
+     *
+     * @param field played field
+     * @return moves which open safe tiles
+     */
+    private List<Move> safeMoves(Field field) {
+        final double[][] probabilities =
+                new ProbabilitySolver(field, pool, cache).solve();
+        final List<Move> moves = new ArrayList<>();
+
+        for (int row = 0; row < field.getRowCount(); ++row) {
+            for (int column = 0; column < field.getColumnCount(); ++column) {
+                if (probabilities[row][column] == 0 &&
+                        field.getTile(row, column).getState() ==
+                                Tile.State.CLOSED) {
+                    moves.add(Move.open(row, column));
+                }
+            }
+        }
+
+        return moves;
+    }
+}
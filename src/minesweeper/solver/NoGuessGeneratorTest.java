@@ -0,0 +1,60 @@
+package minesweeper.solver;
+
+import minesweeper.core.Clue;
+import minesweeper.core.Field;
+import minesweeper.core.GameState;
+import minesweeper.core.Move;
+import minesweeper.core.Tile;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class NoGuessGeneratorTest {
+
+    @Test
+    public void generatedFieldsNeedNoGuess() {
+        NoGuessGenerator generator =
+                new NoGuessGenerator(new ForkJoinPool(2), 100000);
+
+        for (long seed = 0; seed < 10; ++seed) {
+            Field field = generator.generate(16, 30, 99, 8, 15, seed);
+
+            assertEquals(Tile.State.OPEN, field.getTile(8, 15).getState());
+            assertEquals(0, ((Clue) field.getTile(8, 15)).getValue());
+
+            Solver solver = new Solver(field);
+            while (field.getState() == GameState.PLAYING) {
+                List<Move> moves = solver.solve();
+
+                if (moves.isEmpty()) {
+                    double[][] probabilities =
+                            new ProbabilitySolver(field).solve();
+
+                    for (int row = 0; row < 16; ++row) {
+                        for (int column = 0; column < 30; ++column) {
+                            if (probabilities[row][column] == 0 &&
+                                    field.getTile(row, column).getState() ==
+                                            Tile.State.CLOSED) {
+                                moves.add(Move.open(row, column));
+                            }
+                        }
+                    }
+                }
+
+                assertFalse(moves.isEmpty());
+                field.applyMoves(moves);
+            }
+
+            assertEquals(GameState.SOLVED, field.getState());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void impossibleFieldFails() {
+        new NoGuessGenerator(new ForkJoinPool(2), 50).generate(
+                3, 3, 7, 1, 1, 0);
+    }
+}
@@ -0,0 +1,365 @@
+package minesweeper.solver;
+
+import minesweeper.core.Clue;
+import minesweeper.core.Field;
+import minesweeper.core.Move;
+import minesweeper.core.Tile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Solver which finds certain tiles by table lookup.
+ *
+ * Every open clue is looked up alone and together with each open clue
+ * next to it in a row or column in {@link PatternTable}, so local
+ * patterns like 1-1, 1-2 or clues in a corner are answered without
+ * search. Clues around deduced tiles are looked up again through
+ * a worklist. Like {@link Solver}, it sees only open clues, marks and closed
+ * tiles, and marked tiles are treated as mines. It is meant as a fast
+ * first pass before the general solvers run.
+ */
+public class PatternSolver {
+
+    /**
+     * Tile which is not known to be safe or a mine.
+     */
+    private static final byte UNKNOWN = 0;
+
+    /**
+     * Tile which is certainly safe.
+     */
+    private static final byte SAFE = 1;
+
+    /**
+     * Tile which is certainly a mine.
+     */
+    private static final byte MINE = 2;
+
+    /**
+     * Value of a tile which is not an open clue.
+     */
+    private static final byte CLOSED = -1;
+
+    /**
+     * Solved field.
+     */
+    private final Field field;
+
+    /**
+     * Row count of the field.
+     */
+    private final int rowCount;
+
+    /**
+     * Column count of the field.
+     */
+    private final int columnCount;
+
+    /**
+     * Values of open clues, CLOSED for other tiles.
+     */
+    private byte[] clues;
+
+    /**
+     * Knowledge about every tile.
+     */
+    private byte[] knowledge;
+
+    /**
+     * Moves deduced by the current solve.
+     */
+    private List<Move> moves;
+
+    /**
+     * Worklist of clues to look up.
+     */
+    private int[] worklist;
+
+    /**
+     * Count of clues in the worklist.
+     */
+    private int worklistSize;
+
+    /**
+     * True for clues which are in the worklist.
+     */
+    private boolean[] queued;
+
+    /**
+     * Constructor.
+     *
+     * @param field solved field
+     */
+    public PatternSolver(Field field) {
+        this.field = field;
+        rowCount = field.getRowCount();
+        columnCount = field.getColumnCount();
+    }
+
+    /**
+     * Reads the field and looks up all clues until nothing new is found.
+     *
+     * @return moves which open safe tiles and mark mines
+     */
+    public List<Move> solve() {
+        read();
+        moves = new ArrayList<>();
+
+        while (worklistSize > 0) {
+            final int index = worklist[--worklistSize];
+            final int row = index / columnCount;
+            final int column = index % columnCount;
+
+            queued[index] = false;
+
+            if (lookupSingle(row, column) ||
+                    (isClue(row, column + 1) && lookupPair(row, column, false)) ||
+                    (isClue(row + 1, column) && lookupPair(row, column, true)) ||
+                    (isClue(row, column - 1) && lookupPair(row, column - 1, false)) ||
+                    (isClue(row - 1, column) && lookupPair(row - 1, column, true))) {
+                // Deduced tiles may lie outside of the neighbours of
+                // the clue, other pairs are looked up when the clue is
+                // taken again.
+                enqueue(index);
+            }
+        }
+
+        return moves;
+    }
+
+    /**
+     * Reads clues and marks of the field and queues all clues with closed
+     * neighbours.
+     */
+    private void read() {
+        clues = new byte[rowCount * columnCount];
+        knowledge = new byte[clues.length];
+        queued = new boolean[clues.length];
+        worklist = new int[64];
+        worklistSize = 0;
+
+        for (int row = 0; row < rowCount; ++row) {
+            for (int column = 0; column < columnCount; ++column) {
+                final Tile tile = field.getTile(row, column);
+                final int index = row * columnCount + column;
+
+                clues[index] = CLOSED;
+                switch (tile.getState()) {
+                    case OPEN:
+                        // Mine opened in a failed game is a known mine.
+                        if (tile instanceof Clue) {
+                            knowledge[index] = SAFE;
+                            clues[index] = (byte) ((Clue) tile).getValue();
+                        }
+                        else {
+                            knowledge[index] = MINE;
+                        }
+                        break;
+
+                    case MARKED:
+                        knowledge[index] = MINE;
+                        break;
+
+                    default:
+                        break;
+                }
+            }
+        }
+
+        for (int index = 0; index < clues.length; ++index) {
+            if (knowledge[index] == UNKNOWN) {
+                enqueueAround(index / columnCount, index % columnCount);
+            }
+        }
+    }
+
+    /**
+     * Looks up the clue alone.
+     *
+     * @param row    row of the clue
+     * @param column column of the clue
+     * @return true if any tile was deduced
+     */
+    private boolean lookupSingle(int row, int column) {
+        int unknown = 0;
+        int remaining = clues[row * columnCount + column];
+
+        for (int i = 0; i < PatternTable.SINGLE_SIZE; ++i) {
+            final byte tile = knowledgeAt(row + PatternTable.SINGLE_ROWS[i],
+                    column + PatternTable.SINGLE_COLUMNS[i]);
+
+            if (tile == UNKNOWN) {
+                unknown |= 1 << i;
+            }
+            else if (tile == MINE) {
+                --remaining;
+            }
+        }
+
+        if (unknown == 0) {
+            return false;
+        }
+
+        return apply(row, column, PatternTable.lookupSingle(unknown, remaining),
+                PatternTable.SINGLE_SIZE, PatternTable.SINGLE_ROWS,
+                PatternTable.SINGLE_COLUMNS, false);
+    }
+
+    /**
+     * Looks up the clue together with the clue on its right or below it.
+     *
+     * @param row      row of the first clue
+     * @param column   column of the first clue
+     * @param vertical true for the clue below, false for the clue on
+     *                 the right
+     * @return true if any tile was deduced
+     */
+    private boolean lookupPair(int row, int column, boolean vertical) {
+        final int secondRow = vertical ? row + 1 : row;
+        final int secondColumn = vertical ? column : column + 1;
+
+        int unknown = 0;
+        int firstRemaining = clues[row * columnCount + column] -
+                minesAround(row, column);
+        int secondRemaining = clues[secondRow * columnCount + secondColumn] -
+                minesAround(secondRow, secondColumn);
+
+        for (int i = 0; i < PatternTable.PAIR_SIZE; ++i) {
+            final int rowOffset = vertical ?
+                    PatternTable.PAIR_COLUMNS[i] : PatternTable.PAIR_ROWS[i];
+            final int columnOffset = vertical ?
+                    PatternTable.PAIR_ROWS[i] : PatternTable.PAIR_COLUMNS[i];
+
+            if (knowledgeAt(row + rowOffset, column + columnOffset) == UNKNOWN) {
+                unknown |= 1 << i;
+            }
+        }
+
+        if (unknown == 0) {
+            return false;
+        }
+
+        return apply(row, column,
+                PatternTable.lookupPair(unknown, firstRemaining, secondRemaining),
+                PatternTable.PAIR_SIZE, PatternTable.PAIR_ROWS,
+                PatternTable.PAIR_COLUMNS, vertical);
+    }
+
+    /**
+     * Records deductions of a lookup and adds their moves.
+     *
+     * @param row        row of the clue
+     * @param column     column of the clue
+     * @param deductions safe mask in the low bits, mine mask above it
+     * @param size       count of tiles of the pattern
+     * @param rows       row offsets of the tiles of the pattern
+     * @param columns    column offsets of the tiles of the pattern
+     * @param transposed true if rows and columns of the pattern are swapped
+     * @return true if any tile was deduced
+     */
+    private boolean apply(int row, int column, int deductions, int size,
+                          int[] rows, int[] columns, boolean transposed) {
+        if (deductions == 0) {
+            return false;
+        }
+
+        for (int i = 0; i < size; ++i) {
+            final boolean safe = (deductions & (1 << i)) != 0;
+            final boolean mine = (deductions & (1 << (size + i))) != 0;
+
+            if (safe || mine) {
+                final int actRow = row + (transposed ? columns[i] : rows[i]);
+                final int actColumn = column + (transposed ? rows[i] : columns[i]);
+
+                knowledge[actRow * columnCount + actColumn] = safe ? SAFE : MINE;
+                moves.add(safe ? Move.open(actRow, actColumn) :
+                        Move.mark(actRow, actColumn));
+                enqueueAround(actRow, actColumn);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Queues open clues around the tile, if they are not queued yet.
+     *
+     * @param row    row number
+     * @param column column number
+     */
+    private void enqueueAround(int row, int column) {
+        for (int i = 0; i < PatternTable.SINGLE_SIZE; ++i) {
+            final int actRow = row + PatternTable.SINGLE_ROWS[i];
+            final int actColumn = column + PatternTable.SINGLE_COLUMNS[i];
+
+            if (isClue(actRow, actColumn)) {
+                enqueue(actRow * columnCount + actColumn);
+            }
+        }
+    }
+
+    /**
+     * Queues the clue, if it is not queued yet.
+     *
+     * @param index index of the clue
+     */
+    private void enqueue(int index) {
+        if (!queued[index]) {
+            if (worklistSize == worklist.length) {
+                worklist = Arrays.copyOf(worklist, worklistSize * 2);
+            }
+            worklist[worklistSize++] = index;
+            queued[index] = true;
+        }
+    }
+
+    /**
+     * Returns count of known mines around the tile.
+     *
+     * @param row    row number
+     * @param column column number
+     * @return count of known mines
+     */
+    private int minesAround(int row, int column) {
+        int mines = 0;
+
+        for (int i = 0; i < PatternTable.SINGLE_SIZE; ++i) {
+            if (knowledgeAt(row + PatternTable.SINGLE_ROWS[i],
+                    column + PatternTable.SINGLE_COLUMNS[i]) == MINE) {
+                ++mines;
+            }
+        }
+
+        return mines;
+    }
+
+    /**
+     * Returns knowledge about the tile. Tiles outside of the field are
+     * known to be safe.
+     *
+     * @param row    row number
+     * @param column column number
+     * @return knowledge about the tile
+     */
+    private byte knowledgeAt(int row, int column) {
+        if (row < 0 || row >= rowCount || column < 0 || column >= columnCount) {
+            return SAFE;
+        }
+
+        return knowledge[row * columnCount + column];
+    }
+
+    /**
+     * Returns true if the tile is an open clue.
+     *
+     * @param row    row number
+     * @param column column number
+     * @return true if the tile is an open clue
+     */
+    private boolean isClue(int row, int column) {
+        return row >= 0 && row < rowCount && column >= 0 &&
+                column < columnCount && clues[row * columnCount + column] != CLOSED;
+    }
+}
@@ -0,0 +1,91 @@
+package minesweeper.solver;
+
+import minesweeper.core.Clue;
+import minesweeper.core.Field;
+import minesweeper.core.GameState;
+import minesweeper.core.Mine;
+import minesweeper.core.Move;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PatternSolverTest {
+
+    @Test
+    public void deducedMovesAreCorrect() {
+        int solved = 0;
+
+        for (long seed = 0; seed < 300; ++seed) {
+            Field field = new Field(16, 16, 40, seed);
+            PatternSolver solver = new PatternSolver(field);
+
+            openZeroTile(field);
+            for (List<Move> moves = solver.solve(); !moves.isEmpty() &&
+                    field.getState() == GameState.PLAYING; moves = solver.solve()) {
+                for (Move move : moves) {
+                    boolean mine = field.getTile(move.getRow(),
+                            move.getColumn()) instanceof Mine;
+
+                    assertEquals(move.getType() == Move.Type.MARK, mine);
+                }
+
+                field.applyMoves(moves);
+            }
+
+            if (field.getState() == GameState.SOLVED) {
+                ++solved;
+            }
+        }
+
+        assertTrue(solved > 0);
+    }
+
+    @Test
+    public void laterPairOfDeducingClueIsLookedUp() {
+        Field field = new Field(5, 6, 8, 261468);
+
+        // *101*.
+        // 1212..
+        // ..*2.*
+        // 1...*.
+        // *..**.
+        field.openTile(0, 2);
+        field.openTile(1, 0);
+        field.openTile(2, 3);
+        field.openTile(3, 0);
+
+        // Tile (2, 4) is safe only by the pair of clues (0, 3) and (1, 3),
+        // once the mine at (2, 2) is deduced. Clue (1, 3) deduces tiles
+        // outside of its neighbours before that pair is looked up.
+        List<Move> moves = new PatternSolver(field).solve();
+
+        assertTrue(contains(moves, Move.Type.MARK, 2, 2));
+        assertTrue(contains(moves, Move.Type.OPEN, 2, 4));
+    }
+
+    private static boolean contains(List<Move> moves, Move.Type type,
+                                    int row, int column) {
+        for (Move move : moves) {
+            if (move.getType() == type && move.getRow() == row &&
+                    move.getColumn() == column) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static void openZeroTile(Field field) {
+        for (int row = 0; row < field.getRowCount(); ++row) {
+            for (int column = 0; column < field.getColumnCount(); ++column) {
+                if (field.getTile(row, column) instanceof Clue &&
+                        ((Clue) field.getTile(row, column)).getValue() == 0) {
+                    field.openTile(row, column);
+                    return;
+                }
+            }
+        }
+    }
+}
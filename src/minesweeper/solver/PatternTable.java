@@ -0,0 +1,184 @@
+package minesweeper.solver;
+
+/**
+ * Precomputed deductions of local clue patterns.
+ *
+ * Single table answers one clue from its eight neighbours. Pair table
+ * answers two clues next to each other in a row from the ten tiles
+ * around them, numbered row by row:
+ * <pre>
+ *   0 1 2 3
+ *   4 A B 5
+ *   6 7 8 9
+ * </pre>
+ * Clues next to each other in a column use the same table with rows and
+ * columns swapped. Key of a pattern is the mask of unknown tiles and the
+ * counts of mines the clues still need. Value is the mask of safe tiles
+ * in the low bits and the mask of mines above it. Pair table is computed
+ * when the class is loaded by enumerating every subset of every mask of
+ * unknown tiles once, which takes 3^10 steps.
+ */
+class PatternTable {
+
+    /**
+     * Row offsets of the pair tiles from the first clue.
+     */
+    static final int[] PAIR_ROWS = {-1, -1, -1, -1, 0, 0, 1, 1, 1, 1};
+
+    /**
+     * Column offsets of the pair tiles from the first clue.
+     */
+    static final int[] PAIR_COLUMNS = {-1, 0, 1, 2, -1, 2, -1, 0, 1, 2};
+
+    /**
+     * Row offsets of the neighbours of a single clue.
+     */
+    static final int[] SINGLE_ROWS = {-1, -1, -1, 0, 0, 1, 1, 1};
+
+    /**
+     * Column offsets of the neighbours of a single clue.
+     */
+    static final int[] SINGLE_COLUMNS = {-1, 0, 1, -1, 1, -1, 0, 1};
+
+    /**
+     * Pair tiles which are neighbours of the first clue.
+     */
+    private static final int FIRST_TILES = 0b0111010111;
+
+    /**
+     * Pair tiles which are neighbours of the second clue.
+     */
+    private static final int SECOND_TILES = 0b1110101110;
+
+    /**
+     * Count of pair tiles.
+     */
+    static final int PAIR_SIZE = 10;
+
+    /**
+     * Count of neighbours of a single clue.
+     */
+    static final int SINGLE_SIZE = 8;
+
+    /**
+     * Deductions of single clues.
+     */
+    private static final int[] SINGLE = createSingleTable();
+
+    /**
+     * Deductions of pairs of clues.
+     */
+    private static final int[] PAIR = createPairTable();
+
+    /**
+     * Returns deductions of a single clue.
+     *
+     * @param unknown   mask of unknown neighbours
+     * @param remaining count of mines the clue still needs
+     * @return safe mask in the low 8 bits, mine mask above it
+     */
+    static int lookupSingle(int unknown, int remaining) {
+        if (remaining < 0 || remaining > SINGLE_SIZE) {
+            return 0;
+        }
+
+        return SINGLE[unknown | (remaining << SINGLE_SIZE)];
+    }
+
+    /**
+     * Returns deductions of a pair of clues.
+     *
+     * @param unknown         mask of unknown pair tiles
+     * @param firstRemaining  count of mines the first clue still needs
+     * @param secondRemaining count of mines the second clue still needs
+     * @return safe mask in the low 10 bits, mine mask above it
+     */
+    static int lookupPair(int unknown, int firstRemaining, int secondRemaining) {
+        if (firstRemaining < 0 || firstRemaining > SINGLE_SIZE ||
+                secondRemaining < 0 || secondRemaining > SINGLE_SIZE) {
+            return 0;
+        }
+
+        return PAIR[pairKey(unknown, firstRemaining, secondRemaining)];
+    }
+
+    /**
+     * Creates table of single clues.
+     *
+     * @return table of single clues
+     */
+    private static int[] createSingleTable() {
+        final int[] table = new int[1 << (SINGLE_SIZE + 4)];
+
+        for (int unknown = 0; unknown < 1 << SINGLE_SIZE; ++unknown) {
+            table[unknown] = unknown;
+            table[unknown | (Integer.bitCount(unknown) << SINGLE_SIZE)] |=
+                    unknown << SINGLE_SIZE;
+        }
+
+        return table;
+    }
+
+    /**
+     * Creates table of pairs of clues. Tile is safe if no mine layout of
+     * the unknown tiles which satisfies both clues has a mine on it, and
+     * it is a mine if all of them have.
+     *
+     * @return table of pairs of clues
+     */
+    private static int[] createPairTable() {
+        final int[] table = new int[1 << (PAIR_SIZE + 8)];
+        final int[] always = new int[table.length];
+        final int[] ever = new int[table.length];
+        final boolean[] possible = new boolean[table.length];
+
+        for (int unknown = 0; unknown < 1 << PAIR_SIZE; ++unknown) {
+            int mines = unknown;
+
+            while (true) {
+                final int key = pairKey(unknown,
+                        Integer.bitCount(mines & FIRST_TILES),
+                        Integer.bitCount(mines & SECOND_TILES));
+
+                if (possible[key]) {
+                    always[key] &= mines;
+                    ever[key] |= mines;
+                }
+                else {
+                    possible[key] = true;
+                    always[key] = mines;
+                    ever[key] = mines;
+                }
+
+                if (mines == 0) {
+                    break;
+                }
+                mines = (mines - 1) & unknown;
+            }
+        }
+
+        for (int key = 0; key < table.length; ++key) {
+            if (possible[key]) {
+                final int unknown = key & ((1 << PAIR_SIZE) - 1);
+
+                table[key] = (unknown & ~ever[key]) | (always[key] << PAIR_SIZE);
+            }
+        }
+
+        return table;
+    }
+
+    /**
+     * Returns key of a pair pattern.
+     *
+     * @param unknown         mask of unknown pair tiles
+     * @param firstRemaining  count of mines the first clue still needs
+     * @param secondRemaining count of mines the second clue still needs
+     * @return key of the pattern
+     */
+    private static int pairKey(int unknown, int firstRemaining,
+                               int secondRemaining) {
+        return unknown | (firstRemaining << PAIR_SIZE) |
+                (secondRemaining << (PAIR_SIZE + 4));
+    }
+}
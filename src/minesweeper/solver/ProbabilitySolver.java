@@ -0,0 +1,534 @@
+package minesweeper.solver;
+
+import minesweeper.core.Clue;
+import minesweeper.core.Field;
+import minesweeper.core.Tile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Solver computes exact probability of a mine on every tile.
+ *
+ * Like {@link Solver}, it sees only open clues, marks and closed tiles,
+ * and marked tiles are treated as mines. Closed tiles next to open clues
+ * form the frontier, which is split into independent components. Mine
+ * layouts of every component are enumerated by backtracking, large
+ * components in parallel on a fork-join pool. Layout counts of the
+ * components are then combined with the number of ways to place the
+ * remaining mines on closed tiles outside of the frontier, so every
+ * probability accounts for the total count of mines.
+ */
+public class ProbabilitySolver {
+
+    /**
+     * Components with fewer tiles are enumerated on the calling thread.
+     */
+    private static final int PARALLEL_TILES = 16;
+
+    /**
+     * Value of a closed tile.
+     */
+    private static final int CLOSED = -1;
+
+    /**
+     * Value of a marked tile.
+     */
+    private static final int MARKED = -2;
+
+    /**
+     * Solved field.
+     */
+    private final Field field;
+
+    /**
+     * Pool which enumerates large components.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Cache of enumerated components, null if results are not cached.
+     */
+    private final SolverCache cache;
+
+    /**
+     * Row count of the field.
+     */
+    private final int rowCount;
+
+    /**
+     * Column count of the field.
+     */
+    private final int columnCount;
+
+    /**
+     * Constructor. Large components are enumerated on the common pool.
+     *
+     * @param field solved field
+     */
+    public ProbabilitySolver(Field field) {
+        this(field, ForkJoinPool.commonPool(), null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param field solved field
+     * @param pool  pool which enumerates large components
+     * @param cache cache of enumerated components shared by solvers,
+     *              null if results are not cached
+     */
+    public ProbabilitySolver(Field field, ForkJoinPool pool, SolverCache cache) {
+        this.field = field;
+        this.pool = pool;
+        this.cache = cache;
+        rowCount = field.getRowCount();
+        columnCount = field.getColumnCount();
+    }
+
+    /**
+     * Computes probability of a mine on every tile of the field. Open clues
+     * have probability 0, marked tiles and open mines 1.
+     *
+     * @return probabilities indexed by row and column
+     * @throws IllegalStateException if marks contradict open clues
+     */
+    public double[][] solve() {
+        final int[] values = readValues();
+        final List<int[]> constraints = new ArrayList<>();
+        final List<Integer> clues = new ArrayList<>();
+        final List<Integer> targets = new ArrayList<>();
+        final int[] frontier = new int[values.length];
+
+        Arrays.fill(frontier, -1);
+        int frontierSize = 0;
+
+        for (int index = 0; index < values.length; ++index) {
+            if (values[index] < 0) {
+                continue;
+            }
+
+            final int[] tiles = closedNeighbours(values, index);
+            final int target = values[index] - markedNeighbours(values, index);
+
+            if (target < 0 || target > tiles.length) {
+                throw new IllegalStateException(
+                        "Marks contradict clue at " + index);
+            }
+
+            if (tiles.length > 0) {
+                for (int tile : tiles) {
+                    if (frontier[tile] < 0) {
+                        frontier[tile] = frontierSize++;
+                    }
+                }
+
+                constraints.add(tiles);
+                clues.add(index);
+                targets.add(target);
+            }
+        }
+
+        final List<FrontierComponent> components =
+                split(frontier, frontierSize, constraints, clues, targets);
+        enumerate(components);
+
+        return combine(values, frontier, frontierSize, components);
+    }
+
+    /**
+     * Reads values of open clues, marks and closed tiles. Mine opened in
+     * a failed game is a known mine, so it is read as a mark and not as
+     * a clue.
+     *
+     * @return clue value, CLOSED or MARKED for every tile
+     */
+    private int[] readValues() {
+        final int[] values = new int[rowCount * columnCount];
+
+        for (int row = 0; row < rowCount; ++row) {
+            for (int column = 0; column < columnCount; ++column) {
+                final Tile tile = field.getTile(row, column);
+                final int index = row * columnCount + column;
+
+                switch (tile.getState()) {
+                    case OPEN:
+                        values[index] = tile instanceof Clue ?
+                                ((Clue) tile).getValue() : MARKED;
+                        break;
+
+                    case MARKED:
+                        values[index] = MARKED;
+                        break;
+
+                    default:
+                        values[index] = CLOSED;
+                        break;
+                }
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * Splits the frontier into components connected through shared
+     * constraints. Tiles of a component are ordered by breadth-first
+     * search, so tiles of the same constraint are decided close after
+     * each other.
+     *
+     * @param frontier     frontier position of every tile, -1 outside
+     * @param frontierSize count of frontier tiles
+     * @param constraints  tiles of every constraint
+     * @param clues        index of the clue of every constraint
+     * @param targets      count of mines required by every constraint
+     * @return components of the frontier
+     */
+    private List<FrontierComponent> split(int[] frontier, int frontierSize,
+                                          List<int[]> constraints,
+                                          List<Integer> clues,
+                                          List<Integer> targets) {
+        final int[][] tileConstraints = new int[frontierSize][];
+        final int[] constraintCounts = new int[frontierSize];
+
+        for (int[] tiles : constraints) {
+            for (int tile : tiles) {
+                ++constraintCounts[frontier[tile]];
+            }
+        }
+        for (int tile = 0; tile < frontierSize; ++tile) {
+            tileConstraints[tile] = new int[constraintCounts[tile]];
+            constraintCounts[tile] = 0;
+        }
+        for (int constraint = 0; constraint < constraints.size(); ++constraint) {
+            for (int tile : constraints.get(constraint)) {
+                final int position = frontier[tile];
+                tileConstraints[position][constraintCounts[position]++] =
+                        constraint;
+            }
+        }
+
+        final int[] fieldIndexes = new int[frontierSize];
+        for (int index = 0; index < frontier.length; ++index) {
+            if (frontier[index] >= 0) {
+                fieldIndexes[frontier[index]] = index;
+            }
+        }
+
+        final List<FrontierComponent> components = new ArrayList<>();
+        final int[] local = new int[frontierSize];
+        final boolean[] usedConstraints = new boolean[constraints.size()];
+        final int[] queue = new int[frontierSize];
+
+        Arrays.fill(local, -1);
+
+        for (int start = 0; start < frontierSize; ++start) {
+            if (local[start] >= 0) {
+                continue;
+            }
+
+            int head = 0;
+            int tail = 0;
+            final List<Integer> componentConstraints = new ArrayList<>();
+
+            queue[tail++] = start;
+            local[start] = 0;
+
+            while (head < tail) {
+                final int tile = queue[head++];
+
+                for (int constraint : tileConstraints[tile]) {
+                    if (usedConstraints[constraint]) {
+                        continue;
+                    }
+
+                    usedConstraints[constraint] = true;
+                    componentConstraints.add(constraint);
+
+                    for (int index : constraints.get(constraint)) {
+                        final int position = frontier[index];
+
+                        if (local[position] < 0) {
+                            local[position] = tail;
+                            queue[tail++] = position;
+                        }
+                    }
+                }
+            }
+
+            final int[] tiles = new int[tail];
+            for (int i = 0; i < tail; ++i) {
+                tiles[i] = fieldIndexes[queue[i]];
+            }
+
+            final int[][] localConstraints = new int[componentConstraints.size()][];
+            final int[] localClues = new int[componentConstraints.size()];
+            final int[] localTargets = new int[componentConstraints.size()];
+            for (int i = 0; i < localConstraints.length; ++i) {
+                final int[] constraintTiles =
+                        constraints.get(componentConstraints.get(i));
+
+                localConstraints[i] = new int[constraintTiles.length];
+                for (int j = 0; j < constraintTiles.length; ++j) {
+                    localConstraints[i][j] = local[frontier[constraintTiles[j]]];
+                }
+                localClues[i] = clues.get(componentConstraints.get(i));
+                localTargets[i] = targets.get(componentConstraints.get(i));
+            }
+
+            components.add(new FrontierComponent(tiles, localClues,
+                    localConstraints, localTargets));
+        }
+
+        return components;
+    }
+
+    /**
+     * Enumerates layouts of all components which are not in the cache.
+     * Large components run on the pool, small components on the calling
+     * thread meanwhile.
+     *
+     * @param allComponents components of the frontier
+     */
+    private void enumerate(List<FrontierComponent> allComponents) {
+        final List<FrontierComponent> components = new ArrayList<>();
+
+        for (FrontierComponent component : allComponents) {
+            if (cache == null || !cache.load(component, columnCount)) {
+                components.add(component);
+            }
+        }
+
+        for (FrontierComponent component : components) {
+            if (component.getTiles().length >= PARALLEL_TILES) {
+                pool.execute(component);
+            }
+        }
+
+        for (FrontierComponent component : components) {
+            if (component.getTiles().length < PARALLEL_TILES) {
+                component.invoke();
+            }
+        }
+
+        for (FrontierComponent component : components) {
+            component.join();
+
+            if (cache != null) {
+                cache.store(component, columnCount);
+            }
+        }
+    }
+
+    /**
+     * Combines layout counts of the components with the ways to place
+     * remaining mines outside of the frontier. Binomial coefficients are
+     * computed in logarithms and scaled by the largest one, so they stay
+     * inside of the range of double on large fields.
+     *
+     * @param values       clue value, CLOSED or MARKED for every tile
+     * @param frontier     frontier position of every tile, -1 outside
+     * @param frontierSize count of frontier tiles
+     * @param components   enumerated components
+     * @return probabilities indexed by row and column
+     */
+    private double[][] combine(int[] values, int[] frontier, int frontierSize,
+                               List<FrontierComponent> components) {
+        int remaining = field.getMineCount();
+        int outside = 0;
+
+        for (int index = 0; index < values.length; ++index) {
+            if (values[index] == CLOSED && frontier[index] < 0) {
+                ++outside;
+            }
+            else if (values[index] == MARKED) {
+                --remaining;
+            }
+        }
+
+        final double[] weights = outsideWeights(outside, remaining, frontierSize);
+
+        final int count = components.size();
+        final double[][] prefix = new double[count + 1][];
+        final double[][] suffix = new double[count + 1][];
+
+        prefix[0] = new double[] {1};
+        suffix[count] = new double[] {1};
+        for (int i = 0; i < count; ++i) {
+            prefix[i + 1] = convolve(prefix[i],
+                    components.get(i).getLayoutCounts());
+            suffix[count - i - 1] = convolve(
+                    components.get(count - i - 1).getLayoutCounts(),
+                    suffix[count - i]);
+        }
+
+        double total = 0;
+        double outsideMines = 0;
+        for (int mines = 0; mines < prefix[count].length; ++mines) {
+            total += prefix[count][mines] * weights[mines];
+            outsideMines += prefix[count][mines] * weights[mines] *
+                    (remaining - mines);
+        }
+
+        if (!(total > 0)) {
+            throw new IllegalStateException("Marks contradict open clues");
+        }
+
+        final double[][] probabilities = new double[rowCount][columnCount];
+        final double outsideProbability =
+                outside > 0 ? outsideMines / outside / total : 0;
+
+        for (int index = 0; index < values.length; ++index) {
+            if (values[index] == MARKED) {
+                probabilities[index / columnCount][index % columnCount] = 1;
+            }
+            else if (values[index] == CLOSED && frontier[index] < 0) {
+                probabilities[index / columnCount][index % columnCount] =
+                        outsideProbability;
+            }
+        }
+
+        for (int i = 0; i < count; ++i) {
+            final FrontierComponent component = components.get(i);
+            final double[] others = convolve(prefix[i], suffix[i + 1]);
+            final double[] componentWeights =
+                    new double[component.getLayoutCounts().length];
+
+            for (int mines = 0; mines < componentWeights.length; ++mines) {
+                for (int otherMines = 0; otherMines < others.length &&
+                        mines + otherMines < weights.length; ++otherMines) {
+                    componentWeights[mines] +=
+                            others[otherMines] * weights[mines + otherMines];
+                }
+            }
+
+            final int[] tiles = component.getTiles();
+            for (int tile = 0; tile < tiles.length; ++tile) {
+                final double[] mineCounts = component.getMineCounts(tile);
+                double probability = 0;
+
+                for (int mines = 0; mines < mineCounts.length; ++mines) {
+                    probability += mineCounts[mines] * componentWeights[mines];
+                }
+
+                probabilities[tiles[tile] / columnCount][tiles[tile] % columnCount] =
+                        probability / total;
+            }
+        }
+
+        return probabilities;
+    }
+
+    /**
+     * Returns scaled count of ways to place the remaining mines outside of
+     * the frontier for every count of mines in the frontier.
+     *
+     * @param outside      count of closed tiles outside of the frontier
+     * @param remaining    count of mines which are not marked
+     * @param frontierSize count of frontier tiles
+     * @return scaled binomial coefficients indexed by count of frontier mines
+     */
+    private static double[] outsideWeights(int outside, int remaining,
+                                           int frontierSize) {
+        final double[] logFactorials = new double[outside + 1];
+        for (int i = 2; i <= outside; ++i) {
+            logFactorials[i] = logFactorials[i - 1] + Math.log(i);
+        }
+
+        final double[] logWeights = new double[frontierSize + 1];
+        double max = Double.NEGATIVE_INFINITY;
+
+        for (int mines = 0; mines <= frontierSize; ++mines) {
+            final int outsideMines = remaining - mines;
+
+            if (outsideMines < 0 || outsideMines > outside) {
+                logWeights[mines] = Double.NEGATIVE_INFINITY;
+            }
+            else {
+                logWeights[mines] = logFactorials[outside] -
+                        logFactorials[outsideMines] -
+                        logFactorials[outside - outsideMines];
+                max = Math.max(max, logWeights[mines]);
+            }
+        }
+
+        final double[] weights = new double[frontierSize + 1];
+        for (int mines = 0; mines <= frontierSize; ++mines) {
+            weights[mines] = Math.exp(logWeights[mines] - max);
+        }
+
+        return weights;
+    }
+
+    /**
+     * Returns product of two polynomials given by their coefficients.
+     *
+     * @param first  coefficients of the first polynomial
+     * @param second coefficients of the second polynomial
+     * @return coefficients of the product
+     */
+    private static double[] convolve(double[] first, double[] second) {
+        final double[] product = new double[first.length + second.length - 1];
+
+        for (int i = 0; i < first.length; ++i) {
+            if (first[i] != 0) {
+                for (int j = 0; j < second.length; ++j) {
+                    product[i + j] += first[i] * second[j];
+                }
+            }
+        }
+
+        return product;
+    }
+
+    /**
+     * Returns closed neighbours of the tile which are not marked.
+     *
+     * @param values clue value, CLOSED or MARKED for every tile
+     * @param index  index of the tile
+     * @return indexes of closed neighbours
+     */
+    private int[] closedNeighbours(int[] values, int index) {
+        final int[] neighbours = new int[8];
+        int count = 0;
+
+        for (int row = index / columnCount - 1; row <= index / columnCount + 1; ++row) {
+            for (int column = index % columnCount - 1;
+                 column <= index % columnCount + 1; ++column) {
+                if (row >= 0 && row < rowCount && column >= 0 &&
+                        column < columnCount &&
+                        values[row * columnCount + column] == CLOSED) {
+                    neighbours[count++] = row * columnCount + column;
+                }
+            }
+        }
+
+        return Arrays.copyOf(neighbours, count);
+    }
+
+    /**
+     * Returns count of marked neighbours of the tile.
+     *
+     * @param values clue value, CLOSED or MARKED for every tile
+     * @param index  index of the tile
+     * @return count of marked neighbours
+     */
+    private int markedNeighbours(int[] values, int index) {
+        int count = 0;
+
+        for (int row = index / columnCount - 1; row <= index / columnCount + 1; ++row) {
+            for (int column = index % columnCount - 1;
+                 column <= index % columnCount + 1; ++column) {
+                if (row >= 0 && row < rowCount && column >= 0 &&
+                        column < columnCount &&
+                        values[row * columnCount + column] == MARKED) {
+                    ++count;
+                }
+            }
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,245 @@
+package minesweeper.solver;
+
+import minesweeper.core.Clue;
+import minesweeper.core.Field;
+import minesweeper.core.GameState;
+import minesweeper.core.Move;
+import minesweeper.core.Tile;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ProbabilitySolverTest {
+
+    @Test
+    public void probabilitiesMatchAllLayouts() {
+        for (long seed = 0; seed < 40; ++seed) {
+            Field field = new Field(5, 6, 6, seed);
+            Random random = new Random(seed);
+
+            while (field.getNumberOf(Tile.State.CLOSED) > 16 &&
+                    field.getState() == GameState.PLAYING) {
+                int row = random.nextInt(5);
+                int column = random.nextInt(6);
+
+                if (field.getTile(row, column) instanceof Clue) {
+                    field.openTile(row, column);
+                }
+                else if (random.nextInt(4) == 0) {
+                    field.markTile(row, column);
+                }
+            }
+            if (field.getState() != GameState.PLAYING) {
+                continue;
+            }
+
+            double[][] expected = countLayouts(field);
+            double[][] actual = new ProbabilitySolver(field).solve();
+
+            for (int row = 0; row < 5; ++row) {
+                assertArrayEquals(expected[row], actual[row], 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void certainTilesOfSolverAreCertain() {
+        for (long seed = 0; seed < 20; ++seed) {
+            Field field = new Field(16, 30, 99, seed);
+            Solver solver = new Solver(field);
+
+            field.openTile(0, 0);
+            for (List<Move> moves = solver.solve(); !moves.isEmpty() &&
+                    field.getState() == GameState.PLAYING; moves = solver.solve()) {
+                field.applyMoves(moves);
+            }
+            if (field.getState() != GameState.PLAYING) {
+                continue;
+            }
+
+            double[][] probabilities = new ProbabilitySolver(field).solve();
+            for (int row = 0; row < 16; ++row) {
+                for (int column = 0; column < 30; ++column) {
+                    if (solver.isMine(row, column)) {
+                        assertEquals(1, probabilities[row][column], 1e-9);
+                    }
+                    else if (solver.isSafe(row, column)) {
+                        assertEquals(0, probabilities[row][column], 1e-9);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void openMineCountsAsMark() {
+        for (long seed = 0; seed < 40; ++seed) {
+            Field field = new Field(8, 8, 10, seed);
+            Field marked = new Field(8, 8, 10, seed);
+            Random random = new Random(seed);
+
+            while (field.getState() == GameState.PLAYING) {
+                int row = random.nextInt(8);
+                int column = random.nextInt(8);
+
+                if (field.getTile(row, column) instanceof Clue) {
+                    field.openTile(row, column);
+                    marked.openTile(row, column);
+                }
+                else {
+                    field.openTile(row, column);
+                    marked.markTile(row, column);
+                }
+            }
+            if (field.getState() != GameState.FAILED ||
+                    marked.getState() != GameState.PLAYING) {
+                continue;
+            }
+
+            double[][] expected = new ProbabilitySolver(marked).solve();
+            double[][] actual = new ProbabilitySolver(field).solve();
+
+            for (int row = 0; row < 8; ++row) {
+                assertArrayEquals(expected[row], actual[row], 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void cachedResultsAreSame() {
+        SolverCache cache = new SolverCache(8);
+
+        for (long seed = 0; seed < 30; ++seed) {
+            Field field = new Field(16, 16, 40, seed);
+            Solver solver = new Solver(field);
+
+            field.openTile(8, 8);
+            while (field.getState() == GameState.PLAYING) {
+                List<Move> moves = solver.solve();
+
+                if (!moves.isEmpty()) {
+                    field.applyMoves(moves);
+                    continue;
+                }
+
+                double[][] expected = new ProbabilitySolver(field).solve();
+                double[][] actual = new ProbabilitySolver(field,
+                        ForkJoinPool.commonPool(), cache).solve();
+
+                int safestRow = 0;
+                int safestColumn = 0;
+                for (int row = 0; row < 16; ++row) {
+                    assertArrayEquals(expected[row], actual[row], 1e-9);
+
+                    for (int column = 0; column < 16; ++column) {
+                        if (field.getTile(row, column).getState() ==
+                                Tile.State.CLOSED &&
+                                (field.getTile(safestRow, safestColumn).getState() !=
+                                        Tile.State.CLOSED ||
+                                        actual[row][column] <
+                                                actual[safestRow][safestColumn])) {
+                            safestRow = row;
+                            safestColumn = column;
+                        }
+                    }
+                }
+                field.openTile(safestRow, safestColumn);
+            }
+        }
+
+        assertTrue(cache.getHitCount() > 0);
+        assertTrue(cache.getEvictionCount() > 0);
+        assertTrue(cache.getSize() <= 8);
+    }
+
+    private static double[][] countLayouts(Field field) {
+        int rows = field.getRowCount();
+        int columns = field.getColumnCount();
+        List<Integer> closed = new ArrayList<>();
+        int marked = 0;
+
+        for (int i = 0; i < rows * columns; ++i) {
+            Tile.State state = field.getTile(i / columns, i % columns).getState();
+
+            if (state == Tile.State.CLOSED) {
+                closed.add(i);
+            }
+            else if (state == Tile.State.MARKED) {
+                ++marked;
+            }
+        }
+
+        double[][] mines = new double[rows][columns];
+        int layouts = 0;
+        int remaining = field.getMineCount() - marked;
+
+        for (int layout = 0; layout < 1 << closed.size(); ++layout) {
+            if (Integer.bitCount(layout) != remaining ||
+                    !fits(field, closed, layout)) {
+                continue;
+            }
+
+            ++layouts;
+            for (int i = 0; i < closed.size(); ++i) {
+                if ((layout & (1 << i)) != 0) {
+                    mines[closed.get(i) / columns][closed.get(i) % columns] += 1;
+                }
+            }
+        }
+
+        for (int i = 0; i < rows * columns; ++i) {
+            Tile.State state = field.getTile(i / columns, i % columns).getState();
+
+            if (state == Tile.State.MARKED) {
+                mines[i / columns][i % columns] = 1;
+            }
+            else {
+                mines[i / columns][i % columns] /= layouts;
+            }
+        }
+
+        return mines;
+    }
+
+    private static boolean fits(Field field, List<Integer> closed, int layout) {
+        int columns = field.getColumnCount();
+
+        for (int i = 0; i < field.getRowCount() * columns; ++i) {
+            Tile tile = field.getTile(i / columns, i % columns);
+
+            if (tile.getState() != Tile.State.OPEN) {
+                continue;
+            }
+
+            int count = 0;
+            for (int j = 0; j < field.getRowCount() * columns; ++j) {
+                if (field.getTile(j / columns, j % columns).getState() ==
+                        Tile.State.MARKED &&
+                        Math.abs(j / columns - i / columns) <= 1 &&
+                        Math.abs(j % columns - i % columns) <= 1) {
+                    ++count;
+                }
+            }
+            for (int j = 0; j < closed.size(); ++j) {
+                int index = closed.get(j);
+
+                if ((layout & (1 << j)) != 0 &&
+                        Math.abs(index / columns - i / columns) <= 1 &&
+                        Math.abs(index % columns - i % columns) <= 1) {
+                    ++count;
+                }
+            }
+
+            if (count != ((Clue) tile).getValue()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,457 @@
+package minesweeper.solver;
+
+import minesweeper.core.Clue;
+import minesweeper.core.Field;
+import minesweeper.core.FieldChange;
+import minesweeper.core.IFieldListener;
+import minesweeper.core.Move;
+import minesweeper.core.Tile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Solver finds tiles which are certainly safe or certainly mines.
+ *
+ * Solver sees only what a player sees: values of open clues, marks and
+ * closed tiles. Marked tiles are treated as mines. Solver follows the
+ * field as a listener and keeps a worklist of open clues whose
+ * neighbourhood has changed, so every step examines only clues around
+ * newly opened, marked or deduced tiles and never the whole field.
+ *
+ * Every clue is checked alone first. Clue which does not decide its
+ * closed neighbours is then compared with every open clue at most two
+ * tiles away, because the two clues share closed neighbours.
+ */
+public class Solver implements IFieldListener {
+
+    /**
+     * Tile which is not known to be safe or a mine.
+     */
+    private static final byte UNKNOWN = 0;
+
+    /**
+     * Tile which is certainly safe.
+     */
+    private static final byte SAFE = 1;
+
+    /**
+     * Tile which is certainly a mine.
+     */
+    private static final byte MINE = 2;
+
+    /**
+     * Value of a tile which is not an open clue.
+     */
+    private static final byte CLOSED = -1;
+
+    /**
+     * Width of the square frame of tile masks. Frame is centered at the
+     * examined clue and covers neighbours of every clue two tiles away.
+     */
+    private static final int FRAME = 7;
+
+    /**
+     * Solved field.
+     */
+    private final Field field;
+
+    /**
+     * Row count of the field.
+     */
+    private final int rowCount;
+
+    /**
+     * Column count of the field.
+     */
+    private final int columnCount;
+
+    /**
+     * Values of open clues, CLOSED for other tiles.
+     */
+    private final byte[] clues;
+
+    /**
+     * Knowledge about every tile.
+     */
+    private final byte[] knowledge;
+
+    /**
+     * Worklist of open clues to examine.
+     */
+    private int[] worklist = new int[64];
+
+    /**
+     * Count of clues in the worklist.
+     */
+    private int worklistSize;
+
+    /**
+     * True for clues which are in the worklist.
+     */
+    private final boolean[] queued;
+
+    /**
+     * Moves deduced since the last call of solve.
+     */
+    private final List<Move> moves = new ArrayList<>();
+
+    /**
+     * Constructor. Reads the current state of the field and starts
+     * following its changes.
+     *
+     * @param field solved field
+     */
+    public Solver(Field field) {
+        this.field = field;
+        rowCount = field.getRowCount();
+        columnCount = field.getColumnCount();
+
+        clues = new byte[rowCount * columnCount];
+        knowledge = new byte[clues.length];
+        queued = new boolean[clues.length];
+        Arrays.fill(clues, CLOSED);
+
+        for (int index = 0; index < clues.length; ++index) {
+            update(index);
+        }
+
+        field.addListener(this);
+    }
+
+    /**
+     * Stops following changes of the field.
+     */
+    public void detach() {
+        field.removeListener(this);
+    }
+
+    /**
+     * Deduces all certain tiles and returns moves which were not returned
+     * yet: opening of every safe closed tile and marking of every mine
+     * which is not marked.
+     *
+     * @return deduced moves, empty if nothing new can be deduced
+     */
+    public List<Move> solve() {
+        while (worklistSize > 0) {
+            final int index = worklist[--worklistSize];
+
+            queued[index] = false;
+            examine(index);
+        }
+
+        final List<Move> deduced = new ArrayList<>(moves);
+        moves.clear();
+
+        return deduced;
+    }
+
+    /**
+     * Returns true if the tile is certainly safe.
+     *
+     * @param row    row number
+     * @param column column number
+     * @return true if the tile is certainly safe
+     */
+    public boolean isSafe(int row, int column) {
+        return knowledge[row * columnCount + column] == SAFE;
+    }
+
+    /**
+     * Returns true if the tile is certainly a mine or is marked.
+     *
+     * @param row    row number
+     * @param column column number
+     * @return true if the tile is certainly a mine
+     */
+    public boolean isMine(int row, int column) {
+        return knowledge[row * columnCount + column] == MINE;
+    }
+
+    /**
+     * Reads changed tiles and queues clues around them.
+     *
+     * @param change change of the field
+     */
+    @Override
+    public void fieldChanged(FieldChange change) {
+        for (int i = 0; i < change.getTileCount(); ++i) {
+            update(change.getRow(i) * columnCount + change.getColumn(i));
+        }
+    }
+
+    /**
+     * Reads state of the tile from the field. Open clue and open clues
+     * around a changed tile are queued. Values of closed tiles are never
+     * read. Mine opened in a failed game is a known mine.
+     *
+     * @param index index of the tile
+     */
+    private void update(int index) {
+        final Tile tile = field.getTile(index / columnCount, index % columnCount);
+
+        switch (tile.getState()) {
+            case OPEN:
+                if (tile instanceof Clue) {
+                    knowledge[index] = SAFE;
+                    clues[index] = (byte) ((Clue) tile).getValue();
+                    enqueue(index);
+                }
+                else {
+                    knowledge[index] = MINE;
+                }
+                break;
+
+            case MARKED:
+                knowledge[index] = MINE;
+                break;
+
+            default:
+                // Unmarked tile or undone opening.
+                clues[index] = CLOSED;
+                knowledge[index] = UNKNOWN;
+                break;
+        }
+
+        enqueueAround(index);
+    }
+
+    /**
+     * Examines one open clue alone and together with clues around.
+     *
+     * @param index index of the clue
+     */
+    private void examine(int index) {
+        final int row = index / columnCount;
+        final int column = index % columnCount;
+
+        final long unknown = unknownMask(row, column, row, column);
+        if (unknown == 0) {
+            return;
+        }
+
+        final int remaining = remainingMines(row, column);
+        final int unknownCount = Long.bitCount(unknown);
+
+        if (remaining == 0) {
+            deduce(row, column, unknown, SAFE);
+            return;
+        }
+        if (remaining == unknownCount) {
+            deduce(row, column, unknown, MINE);
+            return;
+        }
+
+        for (int actRow = row - 2; actRow <= row + 2; ++actRow) {
+            for (int actColumn = column - 2; actColumn <= column + 2; ++actColumn) {
+                if ((actRow != row || actColumn != column) &&
+                        isClue(actRow, actColumn) &&
+                        comparePair(row, column, unknown, remaining,
+                                actRow, actColumn)) {
+                    // Unknown neighbours changed, other pairs are compared
+                    // when the clue is examined again.
+                    enqueue(index);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Compares two clues in both directions. If one clue needs as many
+     * more mines as it has more unknown tiles, all of those tiles are mines
+     * and the unknown tiles of the other clue outside of the first one are
+     * safe. If unknown tiles of one clue are a subset of unknown tiles of
+     * the other clue and both need the same count of mines, the other
+     * unknown tiles of the other clue are safe.
+     *
+     * @param row       row of the examined clue
+     * @param column    column of the examined clue
+     * @param unknown   unknown neighbours of the examined clue
+     * @param remaining count of mines the examined clue still needs
+     * @param otherRow    row of the other clue
+     * @param otherColumn column of the other clue
+     * @return true if any tile was deduced
+     */
+    private boolean comparePair(int row, int column, long unknown, int remaining,
+                                int otherRow, int otherColumn) {
+        final long otherUnknown = unknownMask(row, column, otherRow, otherColumn);
+        if (otherUnknown == 0 || (otherUnknown & unknown) == 0) {
+            return false;
+        }
+
+        final int otherRemaining = remainingMines(otherRow, otherColumn);
+        final long onlyOther = otherUnknown & ~unknown;
+        final long onlyThis = unknown & ~otherUnknown;
+
+        return compareOrdered(row, column, remaining, onlyThis,
+                otherRemaining, onlyOther) ||
+                compareOrdered(row, column, otherRemaining, onlyOther,
+                        remaining, onlyThis);
+    }
+
+    /**
+     * Compares the first clue with the second clue in one direction.
+     *
+     * @param row             row of the center of the frame
+     * @param column          column of the center of the frame
+     * @param firstRemaining  count of mines the first clue still needs
+     * @param onlyFirst       unknown tiles of the first clue only
+     * @param secondRemaining count of mines the second clue still needs
+     * @param onlySecond      unknown tiles of the second clue only
+     * @return true if any tile was deduced
+     */
+    private boolean compareOrdered(int row, int column,
+                                   int firstRemaining, long onlyFirst,
+                                   int secondRemaining, long onlySecond) {
+        if (onlySecond == 0) {
+            return false;
+        }
+
+        if (secondRemaining - firstRemaining == Long.bitCount(onlySecond)) {
+            deduce(row, column, onlySecond, MINE);
+            deduce(row, column, onlyFirst, SAFE);
+            return true;
+        }
+
+        if (onlyFirst == 0 && secondRemaining == firstRemaining) {
+            deduce(row, column, onlySecond, SAFE);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns unknown neighbours of a clue as a mask in the frame centered
+     * at the examined clue.
+     *
+     * @param row       row of the examined clue
+     * @param column    column of the examined clue
+     * @param clueRow    row of the clue
+     * @param clueColumn column of the clue
+     * @return mask of unknown neighbours
+     */
+    private long unknownMask(int row, int column, int clueRow, int clueColumn) {
+        long mask = 0;
+
+        for (int actRow = clueRow - 1; actRow <= clueRow + 1; ++actRow) {
+            for (int actColumn = clueColumn - 1; actColumn <= clueColumn + 1; ++actColumn) {
+                if (isInside(actRow, actColumn) &&
+                        knowledge[actRow * columnCount + actColumn] == UNKNOWN) {
+                    mask |= 1L << ((actRow - row + FRAME / 2) * FRAME +
+                            actColumn - column + FRAME / 2);
+                }
+            }
+        }
+
+        return mask;
+    }
+
+    /**
+     * Returns count of mines the clue still needs among its unknown
+     * neighbours.
+     *
+     * @param row    row of the clue
+     * @param column column of the clue
+     * @return count of missing mines
+     */
+    private int remainingMines(int row, int column) {
+        int remaining = clues[row * columnCount + column];
+
+        for (int actRow = row - 1; actRow <= row + 1; ++actRow) {
+            for (int actColumn = column - 1; actColumn <= column + 1; ++actColumn) {
+                if (isInside(actRow, actColumn) &&
+                        knowledge[actRow * columnCount + actColumn] == MINE) {
+                    --remaining;
+                }
+            }
+        }
+
+        return remaining;
+    }
+
+    /**
+     * Records knowledge about tiles of a mask, adds their moves and queues
+     * clues around them.
+     *
+     * @param row       row of the center of the frame
+     * @param column    column of the center of the frame
+     * @param mask      mask of deduced tiles
+     * @param deduced   SAFE or MINE
+     */
+    private void deduce(int row, int column, long mask, byte deduced) {
+        while (mask != 0) {
+            final int bit = Long.numberOfTrailingZeros(mask);
+            final int actRow = row + bit / FRAME - FRAME / 2;
+            final int actColumn = column + bit % FRAME - FRAME / 2;
+            final int index = actRow * columnCount + actColumn;
+
+            mask &= mask - 1;
+
+            knowledge[index] = deduced;
+            moves.add(deduced == SAFE ?
+                    Move.open(actRow, actColumn) : Move.mark(actRow, actColumn));
+            enqueueAround(index);
+        }
+    }
+
+    /**
+     * Queues open clues around the tile.
+     *
+     * @param index index of the tile
+     */
+    private void enqueueAround(int index) {
+        final int row = index / columnCount;
+        final int column = index % columnCount;
+
+        for (int actRow = row - 1; actRow <= row + 1; ++actRow) {
+            for (int actColumn = column - 1; actColumn <= column + 1; ++actColumn) {
+                if (isClue(actRow, actColumn)) {
+                    enqueue(actRow * columnCount + actColumn);
+                }
+            }
+        }
+    }
+
+    /**
+     * Queues the clue, if it is not queued yet.
+     *
+     * @param index index of the clue
+     */
+    private void enqueue(int index) {
+        if (queued[index]) {
+            return;
+        }
+
+        if (worklistSize == worklist.length) {
+            worklist = Arrays.copyOf(worklist, worklistSize * 2);
+        }
+        worklist[worklistSize++] = index;
+        queued[index] = true;
+    }
+
+    /**
+     * Returns true if the tile is an open clue.
+     *
+     * @param row    row number
+     * @param column column number
+     * @return true if the tile is an open clue
+     */
+    private boolean isClue(int row, int column) {
+        return isInside(row, column) && clues[row * columnCount + column] != CLOSED;
+    }
+
+    /**
+     * Returns true if the position is inside of the field.
+     *
+     * @param row    row number
+     * @param column column number
+     * @return true if the position is inside of the field
+     */
+    private boolean isInside(int row, int column) {
+        return row >= 0 && row < rowCount && column >= 0 && column < columnCount;
+    }
+}
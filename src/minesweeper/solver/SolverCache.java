@@ -0,0 +1,260 @@
+package minesweeper.solver;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of enumerated frontier components.
+ *
+ * Cache is keyed by the canonical pattern of a component, so a component
+ * matches every earlier component with the same clues and closed tiles in
+ * any rotation or reflection, in any game. Cached layout counts are
+ * stored in the canonical order of tiles and are mapped back to the tiles
+ * of the component on a hit. Least recently used patterns are evicted
+ * when the cache is full. One cache can be shared by solvers on many
+ * threads.
+ */
+public class SolverCache {
+
+    /**
+     * Maximal count of cached patterns.
+     */
+    private final int capacity;
+
+    /**
+     * Cached results in access order, least recently used first.
+     */
+    private final Map<ComponentPattern, CachedCounts> entries;
+
+    /**
+     * Count of found patterns.
+     */
+    private long hitCount;
+
+    /**
+     * Count of patterns which were not found.
+     */
+    private long missCount;
+
+    /**
+     * Count of evicted patterns.
+     */
+    private long evictionCount;
+
+    /**
+     * Total time of lookups, including computation of the patterns.
+     */
+    private long lookupNanos;
+
+    /**
+     * Total time of enumerations of components which were not found.
+     */
+    private long enumerationNanos;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity maximal count of cached patterns
+     */
+    public SolverCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+
+        this.capacity = capacity;
+        entries = new LinkedHashMap<ComponentPattern, CachedCounts>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<ComponentPattern, CachedCounts> eldest) {
+                if (size() > SolverCache.this.capacity) {
+                    ++evictionCount;
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns maximal count of cached patterns.
+     *
+     * @return capacity of the cache
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns count of cached patterns.
+     *
+     * @return count of cached patterns
+     */
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * Returns count of lookups which found the pattern.
+     *
+     * @return count of hits
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns count of lookups which did not find the pattern.
+     *
+     * @return count of misses
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns count of patterns evicted from the full cache.
+     *
+     * @return count of evictions
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns ratio of hits to all lookups.
+     *
+     * @return hit rate between 0 and 1, 0 before the first lookup
+     */
+    public synchronized double getHitRate() {
+        final long lookups = hitCount + missCount;
+
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    /**
+     * Returns average time of a lookup, including computation of the
+     * canonical pattern.
+     *
+     * @return average lookup time in nanoseconds
+     */
+    public synchronized double getAverageLookupNanos() {
+        final long lookups = hitCount + missCount;
+
+        return lookups == 0 ? 0 : (double) lookupNanos / lookups;
+    }
+
+    /**
+     * Returns average time of an enumeration of a component which was not
+     * found, which is the time a hit saves.
+     *
+     * @return average enumeration time in nanoseconds
+     */
+    public synchronized double getAverageEnumerationNanos() {
+        return missCount == 0 ? 0 : (double) enumerationNanos / missCount;
+    }
+
+    /**
+     * Removes all patterns and resets statistics.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        hitCount = 0;
+        missCount = 0;
+        evictionCount = 0;
+        lookupNanos = 0;
+        enumerationNanos = 0;
+    }
+
+    /**
+     * Sets cached counts to the component, if its pattern is cached.
+     *
+     * @param component   frontier component
+     * @param columnCount column count of the field
+     * @return true if the pattern was found
+     */
+    boolean load(FrontierComponent component, int columnCount) {
+        final long start = System.nanoTime();
+        final ComponentPattern pattern = component.getPattern(columnCount);
+        final CachedCounts cached;
+
+        synchronized (this) {
+            cached = entries.get(pattern);
+
+            if (cached == null) {
+                ++missCount;
+            }
+            else {
+                ++hitCount;
+            }
+        }
+
+        if (cached != null) {
+            final int tileCount = component.getTiles().length;
+            final double[][] mineCounts = new double[tileCount][];
+
+            for (int tile = 0; tile < tileCount; ++tile) {
+                mineCounts[tile] =
+                        cached.mineCounts[pattern.getCanonicalPosition(tile)];
+            }
+            component.setCounts(cached.layoutCounts, mineCounts);
+        }
+
+        final long nanos = System.nanoTime() - start;
+        synchronized (this) {
+            lookupNanos += nanos;
+        }
+
+        return cached != null;
+    }
+
+    /**
+     * Stores counts of an enumerated component.
+     *
+     * @param component   enumerated frontier component
+     * @param columnCount column count of the field
+     */
+    void store(FrontierComponent component, int columnCount) {
+        final ComponentPattern pattern = component.getPattern(columnCount);
+        final int tileCount = component.getTiles().length;
+        final double[][] mineCounts = new double[tileCount][];
+
+        for (int tile = 0; tile < tileCount; ++tile) {
+            mineCounts[pattern.getCanonicalPosition(tile)] =
+                    component.getMineCounts(tile);
+        }
+
+        synchronized (this) {
+            entries.put(pattern,
+                    new CachedCounts(component.getLayoutCounts(), mineCounts));
+            enumerationNanos += component.getEnumerationNanos();
+        }
+    }
+
+    /**
+     * Layout counts of a pattern in the canonical order of tiles.
+     */
+    private static final class CachedCounts {
+
+        /**
+         * Scaled layout counts indexed by count of mines.
+         */
+        private final double[] layoutCounts;
+
+        /**
+         * Scaled mine counts of every tile in canonical order.
+         */
+        private final double[][] mineCounts;
+
+        /**
+         * Constructor.
+         *
+         * @param layoutCounts scaled layout counts
+         * @param mineCounts   scaled mine counts in canonical order
+         */
+        private CachedCounts(double[] layoutCounts, double[][] mineCounts) {
+            this.layoutCounts = layoutCounts;
+            this.mineCounts = mineCounts;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package minesweeper.solver;
+
+import minesweeper.core.Clue;
+import minesweeper.core.Field;
+import minesweeper.core.GameState;
+import minesweeper.core.Mine;
+import minesweeper.core.Move;
+import minesweeper.core.Tile;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SolverTest {
+
+    @Test
+    public void deducedMovesAreCorrect() {
+        int solved = 0;
+
+        for (long seed = 0; seed < 300; ++seed) {
+            Field field = new Field(16, 30, 99, seed);
+            Solver solver = new Solver(field);
+
+            openZeroTile(field);
+            for (List<Move> moves = solver.solve(); !moves.isEmpty();
+                 moves = solver.solve()) {
+                for (Move move : moves) {
+                    boolean mine = field.getTile(move.getRow(),
+                            move.getColumn()) instanceof Mine;
+
+                    assertEquals(move.getType() == Move.Type.MARK, mine);
+                }
+
+                field.applyMoves(moves);
+            }
+
+            assertNotEquals(GameState.FAILED, field.getState());
+            if (field.getState() == GameState.SOLVED) {
+                ++solved;
+            }
+        }
+
+        assertTrue(solved > 0);
+    }
+
+    @Test
+    public void incrementalSolverFindsEverything() {
+        for (long seed = 0; seed < 100; ++seed) {
+            Field field = new Field(16, 16, 40, seed);
+            Solver solver = new Solver(field);
+
+            openZeroTile(field);
+            for (List<Move> moves = solver.solve(); !moves.isEmpty();
+                 moves = solver.solve()) {
+                field.applyMoves(moves);
+            }
+
+            Solver fresh = new Solver(field);
+            fresh.solve();
+            for (int row = 0; row < 16; ++row) {
+                for (int column = 0; column < 16; ++column) {
+                    assertEquals(fresh.isSafe(row, column),
+                            solver.isSafe(row, column));
+                    assertEquals(fresh.isMine(row, column),
+                            solver.isMine(row, column));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void openMineIsKnownMine() {
+        int failed = 0;
+
+        for (long seed = 0; seed < 100; ++seed) {
+            Field field = new Field(16, 16, 40, seed);
+            Solver solver = new Solver(field);
+
+            openZeroTile(field);
+            for (List<Move> moves = solver.solve(); !moves.isEmpty();
+                 moves = solver.solve()) {
+                field.applyMoves(moves);
+            }
+            if (field.getState() != GameState.PLAYING) {
+                continue;
+            }
+
+            int[] mine = frontierMine(field, solver);
+            if (mine == null) {
+                continue;
+            }
+
+            field.openTile(mine[0], mine[1]);
+            ++failed;
+
+            List<Move> moves = solver.solve();
+            assertTrue(solver.isMine(mine[0], mine[1]));
+            assertFalse(solver.isSafe(mine[0], mine[1]));
+            for (Move move : moves) {
+                boolean actual = field.getTile(move.getRow(),
+                        move.getColumn()) instanceof Mine;
+
+                assertEquals(move.getType() == Move.Type.MARK, actual);
+            }
+        }
+
+        assertTrue(failed > 0);
+    }
+
+    private static int[] frontierMine(Field field, Solver solver) {
+        for (int row = 0; row < field.getRowCount(); ++row) {
+            for (int column = 0; column < field.getColumnCount(); ++column) {
+                if (field.getTile(row, column) instanceof Mine &&
+                        !solver.isMine(row, column) &&
+                        nextToOpenTile(field, row, column)) {
+                    return new int[] {row, column};
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private static boolean nextToOpenTile(Field field, int row, int column) {
+        for (int i = Math.max(0, row - 1);
+             i <= Math.min(field.getRowCount() - 1, row + 1); ++i) {
+            for (int j = Math.max(0, column - 1);
+                 j <= Math.min(field.getColumnCount() - 1, column + 1); ++j) {
+                if (field.getTile(i, j).getState() == Tile.State.OPEN) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static void openZeroTile(Field field) {
+        for (int row = 0; row < field.getRowCount(); ++row) {
+            for (int column = 0; column < field.getColumnCount(); ++column) {
+                if (field.getTile(row, column) instanceof Clue &&
+                        ((Clue) field.getTile(row, column)).getValue() == 0) {
+                    field.openTile(row, column);
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,608 @@
+package minesweeper.swingui;
+
+import minesweeper.core.Field;
+import minesweeper.core.GameState;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * View of the whole playing field painted by one component.
+ *
+ * Every look of a tile is painted once into a {@link SpriteAtlas}, which
+ * is created again when the tile size or the screen changes. View keeps the
+ * sprite shown on every tile. Moves are made by another thread, which
+ * sends sprites of changed tiles in {@link TileBatch}es, so the view reads
+ * the field only when a new field is set. Batches are shown in the order
+ * of moves, at most a given count of tiles per frame, so a large opening
+ * is revealed progressively and the event dispatch thread stays free for
+ * input. Only tiles whose sprite really changed are repainted, by one
+ * repaint of the rectangle around them in every frame, and painting
+ * copies the shown sprites inside the clip.
+ * Tile under the mouse is found by dividing its coordinates by the size
+ * of a tile. In a scroll pane only tiles in the visible part of the view
+ * are painted, and the size of tiles can be zoomed.
+ */
+public class BoardView extends JComponent implements Scrollable {
+
+    /**
+     * Version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Default size of a tile in pixels.
+     */
+    static final int DEFAULT_TILE_SIZE = 30;
+
+    /**
+     * Minimal size of a tile in pixels.
+     */
+    static final int MIN_TILE_SIZE = 4;
+
+    /**
+     * Maximal size of a tile in pixels.
+     */
+    static final int MAX_TILE_SIZE = 60;
+
+    /**
+     * Smaller tiles are copied pixel by pixel into one frame image,
+     * because painting them one by one costs more than their pixels.
+     */
+    private static final int SMALL_TILE_SIZE = 16;
+
+    /**
+     * Maximal preferred size of the viewport.
+     */
+    private static final Dimension MAX_VIEWPORT_SIZE = new Dimension(960, 640);
+
+    /**
+     * Delay between frames of a progressive reveal in milliseconds.
+     */
+    private static final int FRAME_DELAY = 16;
+
+    /**
+     * Minimal count of tiles shown in one frame.
+     */
+    private static final int MIN_TILES_PER_FRAME = 1024;
+
+    /**
+     * Count of frames in which waiting tiles are shown, unless that is
+     * less than the minimal count per frame.
+     */
+    private static final int REVEAL_FRAMES = 20;
+
+    /**
+     * Maximal time spent by showing tiles in one frame in nanoseconds,
+     * so that the frame leaves time for input and painting.
+     */
+    private static final long FRAME_BUDGET = 6_000_000;
+
+    /**
+     * Sprites for the current tile size and screen, null until the first
+     * painting.
+     */
+    private SpriteAtlas atlas;
+
+    /**
+     * Frame image into which small tiles are copied, reused by paintings.
+     */
+    private BufferedImage frame;
+
+    /**
+     * Displayed field, null before the first game.
+     */
+    private Field field;
+
+    /**
+     * Size of a tile in pixels.
+     */
+    private int tileSize = DEFAULT_TILE_SIZE;
+
+    /**
+     * Mini map which shows the whole field, null if there is none.
+     */
+    private MiniMap miniMap;
+
+    /**
+     * Sprite shown on every tile.
+     */
+    private byte[] shown = new byte[0];
+
+    /**
+     * Batches waiting to be shown, in the order of moves.
+     */
+    private final Deque<Batch> batches = new ArrayDeque<>();
+
+    /**
+     * Count of tiles already shown from the first waiting batch.
+     */
+    private int shownFromBatch;
+
+    /**
+     * Count of tiles shown in one frame.
+     */
+    private int tilesPerFrame = MIN_TILES_PER_FRAME;
+
+    /**
+     * Timer which shows waiting tiles frame by frame.
+     */
+    private final Timer revealTimer;
+
+    /**
+     * Constructor.
+     */
+    public BoardView() {
+        setOpaque(true);
+        setBackground(UIManager.getColor("Label.background"));
+
+        revealTimer = new Timer(FRAME_DELAY, actionEvent -> reveal());
+    }
+
+    /**
+     * Displays the field. All tiles are read from the field, so no move
+     * may be made on it at the same time. Waiting batches of the previous
+     * field are thrown away.
+     *
+     * @param field displayed field
+     */
+    public void setField(Field field) {
+        this.field = field;
+
+        batches.clear();
+        shownFromBatch = 0;
+        revealTimer.stop();
+
+        shown = new byte[field.getRowCount() * field.getColumnCount()];
+        readAll();
+
+        if (miniMap != null) {
+            miniMap.setTiles(field.getRowCount(), field.getColumnCount(), shown);
+        }
+
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Sets mini map which shows the whole field.
+     *
+     * @param miniMap mini map
+     */
+    void setMiniMap(MiniMap miniMap) {
+        this.miniMap = miniMap;
+
+        if (field != null) {
+            miniMap.setTiles(field.getRowCount(), field.getColumnCount(), shown);
+        }
+    }
+
+    /**
+     * Returns size of a tile in pixels.
+     *
+     * @return size of a tile
+     */
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * Changes size of tiles. Point of the field under the anchor stays
+     * under it, if the view is in a viewport.
+     *
+     * @param size   new size of a tile, limited to the allowed sizes
+     * @param anchor point of the view which stays in place
+     */
+    public void setTileSize(int size, Point anchor) {
+        final int newSize = Math.max(MIN_TILE_SIZE, Math.min(MAX_TILE_SIZE, size));
+
+        if (newSize == tileSize) {
+            return;
+        }
+
+        final double scale = (double) newSize / tileSize;
+        tileSize = newSize;
+        revalidate();
+
+        if (getParent() instanceof JViewport) {
+            final JViewport viewport = (JViewport) getParent();
+            final Point position = viewport.getViewPosition();
+            final int anchorX = anchor.x - position.x;
+            final int anchorY = anchor.y - position.y;
+
+            // Size of the view must be known before its position is set.
+            viewport.doLayout();
+            final Dimension extent = viewport.getExtentSize();
+            final Dimension viewSize = getPreferredSize();
+            viewport.setViewPosition(new Point(
+                    clamp((int) (anchor.x * scale) - anchorX,
+                            viewSize.width - extent.width),
+                    clamp((int) (anchor.y * scale) - anchorY,
+                            viewSize.height - extent.height)));
+        }
+
+        repaint();
+    }
+
+    /**
+     * Limits position of the viewport to the view.
+     *
+     * @param position position of the viewport
+     * @param max      maximal position
+     * @return limited position
+     */
+    private static int clamp(int position, int max) {
+        return Math.max(0, Math.min(position, max));
+    }
+
+    /**
+     * Zooms tiles in or out by steps of a quarter of their size.
+     *
+     * @param steps  count of steps, negative to zoom out
+     * @param anchor point of the view which stays in place
+     */
+    public void zoom(int steps, Point anchor) {
+        int size = tileSize;
+
+        for (int i = 0; i < Math.abs(steps); ++i) {
+            size = steps > 0 ? Math.max(size + 1, size * 5 / 4) :
+                    Math.min(size - 1, size * 4 / 5);
+        }
+
+        setTileSize(size, anchor);
+    }
+
+    /**
+     * Shows tiles of the batch after all batches which are waiting.
+     * Batch of another field than the displayed one is ignored.
+     *
+     * @param batch sprites of tiles changed by a move
+     * @param shown called when all tiles of the batch are shown
+     */
+    void show(TileBatch batch, Runnable shown) {
+        if (batch.getField() != field) {
+            return;
+        }
+
+        batches.add(new Batch(batch, shown));
+
+        int waiting = -shownFromBatch;
+        for (Batch waitingBatch : batches) {
+            waiting += waitingBatch.tiles.getTileCount();
+        }
+        tilesPerFrame = Math.max(MIN_TILES_PER_FRAME, waiting / REVEAL_FRAMES);
+
+        if (!revealTimer.isRunning()) {
+            revealTimer.start();
+            reveal();
+        }
+    }
+
+    /**
+     * Returns row number at the y coordinate.
+     *
+     * @param y y coordinate in the view
+     * @return row number, -1 if it is outside of the field
+     */
+    public int getRowAt(int y) {
+        final int row = Math.floorDiv(y, tileSize);
+
+        return field == null || row >= field.getRowCount() ? -1 : row;
+    }
+
+    /**
+     * Returns column number at the x coordinate.
+     *
+     * @param x x coordinate in the view
+     * @return column number, -1 if it is outside of the field
+     */
+    public int getColumnAt(int x) {
+        final int column = Math.floorDiv(x, tileSize);
+
+        return field == null || column >= field.getColumnCount() ? -1 : column;
+    }
+
+    /**
+     * Returns size of the whole field.
+     *
+     * @return preferred size
+     */
+    @Override
+    public Dimension getPreferredSize() {
+        if (field == null) {
+            return new Dimension(tileSize, tileSize);
+        }
+
+        return new Dimension(field.getColumnCount() * tileSize,
+                field.getRowCount() * tileSize);
+    }
+
+    /**
+     * Returns preferred size of the viewport, which fits small fields
+     * completely.
+     *
+     * @return preferred size of the viewport
+     */
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        final Dimension size = getPreferredSize();
+
+        return new Dimension(Math.min(size.width, MAX_VIEWPORT_SIZE.width),
+                Math.min(size.height, MAX_VIEWPORT_SIZE.height));
+    }
+
+    /**
+     * Returns scroll distance of one tile.
+     *
+     * @param visibleRect visible part of the view
+     * @param orientation scroll orientation
+     * @param direction   scroll direction
+     * @return size of a tile
+     */
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect,
+                                         int orientation, int direction) {
+        return tileSize;
+    }
+
+    /**
+     * Returns scroll distance of one page, whole visible tiles less one.
+     *
+     * @param visibleRect visible part of the view
+     * @param orientation scroll orientation
+     * @param direction   scroll direction
+     * @return scroll distance of one page
+     */
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect,
+                                          int orientation, int direction) {
+        final int extent = orientation == SwingConstants.HORIZONTAL ?
+                visibleRect.width : visibleRect.height;
+
+        return Math.max(tileSize, (extent / tileSize - 1) * tileSize);
+    }
+
+    /**
+     * Returns false, width of the view is given by the field.
+     *
+     * @return false
+     */
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    /**
+     * Returns false, height of the view is given by the field.
+     *
+     * @return false
+     */
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+
+    /**
+     * Paints tiles inside the clip.
+     *
+     * @param g graphics
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        final Rectangle clip = g.getClipBounds();
+
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        if (field == null) {
+            return;
+        }
+
+        final int firstRow = Math.max(0, clip.y / tileSize);
+        final int lastRow = Math.min(field.getRowCount() - 1,
+                (clip.y + clip.height - 1) / tileSize);
+        final int firstColumn = Math.max(0, clip.x / tileSize);
+        final int lastColumn = Math.min(field.getColumnCount() - 1,
+                (clip.x + clip.width - 1) / tileSize);
+        final int columnCount = field.getColumnCount();
+
+        if (atlas == null ||
+                !atlas.isValid(tileSize, getGraphicsConfiguration())) {
+            atlas = new SpriteAtlas(this, tileSize, getGraphicsConfiguration());
+        }
+
+        if (tileSize < SMALL_TILE_SIZE) {
+            paintSmallTiles(g, firstRow, lastRow, firstColumn, lastColumn);
+        }
+        else {
+            do {
+                final Image image = atlas.getImage();
+
+                for (int row = firstRow; row <= lastRow; ++row) {
+                    for (int column = firstColumn; column <= lastColumn; ++column) {
+                        atlas.draw(g, image, shown[row * columnCount + column],
+                                column * tileSize, row * tileSize);
+                    }
+                }
+            } while (atlas.contentsLost());
+        }
+    }
+
+    /**
+     * Copies pixels of small tiles into the frame image and paints it.
+     *
+     * @param g           graphics
+     * @param firstRow    first painted row
+     * @param lastRow     last painted row
+     * @param firstColumn first painted column
+     * @param lastColumn  last painted column
+     */
+    private void paintSmallTiles(Graphics g, int firstRow, int lastRow,
+                                 int firstColumn, int lastColumn) {
+        final int width = (lastColumn - firstColumn + 1) * tileSize;
+        final int height = (lastRow - firstRow + 1) * tileSize;
+
+        if (frame == null || frame.getWidth() < width ||
+                frame.getHeight() < height) {
+            frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+
+        final int[] pixels =
+                ((DataBufferInt) frame.getRaster().getDataBuffer()).getData();
+        final int stride = frame.getWidth();
+        final int columnCount = field.getColumnCount();
+
+        for (int row = firstRow; row <= lastRow; ++row) {
+            final int rowOffset = (row - firstRow) * tileSize * stride;
+
+            for (int column = firstColumn; column <= lastColumn; ++column) {
+                final int[] sprite =
+                        atlas.getPixels(shown[row * columnCount + column]);
+                final int offset = rowOffset + (column - firstColumn) * tileSize;
+
+                for (int y = 0; y < tileSize; ++y) {
+                    System.arraycopy(sprite, y * tileSize,
+                            pixels, offset + y * stride, tileSize);
+                }
+            }
+        }
+
+        final int x = firstColumn * tileSize;
+        final int y = firstRow * tileSize;
+        g.drawImage(frame, x, y, x + width, y + height,
+                0, 0, width, height, null);
+    }
+
+    /**
+     * Shows next frame of waiting tiles and repaints the rectangle around
+     * tiles whose sprite changed. Frame ends after the count of tiles per
+     * frame or after the time budget. When the last tile of a batch is shown,
+     * its callback is called and the frame ends, because the callback may
+     * start a new game.
+     */
+    private void reveal() {
+        final long start = System.nanoTime();
+        final int columnCount = field.getColumnCount();
+
+        int top = Integer.MAX_VALUE;
+        int left = Integer.MAX_VALUE;
+        int bottom = -1;
+        int right = -1;
+
+        int budget = tilesPerFrame;
+        Runnable finished = null;
+
+        while (budget > 0 && finished == null && !batches.isEmpty() &&
+                System.nanoTime() - start < FRAME_BUDGET) {
+            final Batch batch = batches.peek();
+            final int step = Math.min(budget, MIN_TILES_PER_FRAME);
+            final int end = (int) Math.min(batch.tiles.getTileCount(),
+                    (long) shownFromBatch + step);
+
+            for (int i = shownFromBatch; i < end; ++i) {
+                final int index = batch.tiles.getIndex(i);
+
+                // Only changed tiles extend the repainted rectangle.
+                if (showTile(index, batch.tiles.getSprite(i))) {
+                    final int row = index / columnCount;
+                    final int column = index % columnCount;
+
+                    top = Math.min(top, row);
+                    bottom = Math.max(bottom, row);
+                    left = Math.min(left, column);
+                    right = Math.max(right, column);
+                }
+            }
+
+            budget -= end - shownFromBatch;
+            shownFromBatch = end;
+
+            if (shownFromBatch == batch.tiles.getTileCount()) {
+                batches.poll();
+                shownFromBatch = 0;
+                finished = batch.shown;
+            }
+        }
+
+        if (batches.isEmpty()) {
+            revealTimer.stop();
+        }
+
+        if (bottom >= 0) {
+            repaint(left * tileSize, top * tileSize,
+                    (right - left + 1) * tileSize,
+                    (bottom - top + 1) * tileSize);
+
+            if (miniMap != null) {
+                miniMap.repaint();
+            }
+        }
+
+        if (finished != null) {
+            finished.run();
+        }
+    }
+
+    /**
+     * Reads sprites of all tiles from the field.
+     */
+    private void readAll() {
+        final int columnCount = field.getColumnCount();
+        final GameState state = field.getState();
+
+        for (int index = 0; index < shown.length; ++index) {
+            shown[index] = (byte) TileBatch.spriteOf(field.getTile(
+                    index / columnCount, index % columnCount), state);
+        }
+    }
+
+    /**
+     * Shows sprite on the tile.
+     *
+     * @param index  index of the tile
+     * @param sprite sprite number
+     * @return true if the sprite changed
+     */
+    private boolean showTile(int index, int sprite) {
+        if (shown[index] == sprite) {
+            return false;
+        }
+
+        if (miniMap != null) {
+            miniMap.tileChanged(index, shown[index], sprite);
+        }
+        shown[index] = (byte) sprite;
+        return true;
+    }
+
+    /**
+     * Batch waiting to be shown with its callback.
+     */
+    private static class Batch {
+
+        /**
+         * Sprites of changed tiles.
+         */
+        private final TileBatch tiles;
+
+        /**
+         * Called when all tiles of the batch are shown.
+         */
+        private final Runnable shown;
+
+        /**
+         * Constructor.
+         *
+         * @param tiles sprites of changed tiles
+         * @param shown called when all tiles of the batch are shown
+         */
+        private Batch(TileBatch tiles, Runnable shown) {
+            this.tiles = tiles;
+            this.shown = shown;
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package minesweeper.swingui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Mini map of the whole field with the visible part of the board view.
+ *
+ * Every pixel of the map stands for a square block of tiles and keeps
+ * counts of open tiles and of marks or mines in the block. Board view
+ * reports every tile whose sprite changes, so counts are updated in
+ * constant time and only pixels of changed blocks are painted again.
+ * Pressing or dragging the mouse on the map scrolls the board view.
+ */
+public class MiniMap extends JComponent {
+
+    /**
+     * Version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Maximal size of the map in pixels.
+     */
+    private static final int MAX_SIZE = 160;
+
+    /**
+     * Color of closed tiles.
+     */
+    private static final Color CLOSED_COLOR = new Color(150, 150, 150);
+
+    /**
+     * Color of open tiles.
+     */
+    private static final Color OPEN_COLOR = new Color(230, 230, 230);
+
+    /**
+     * Color of marks and mines.
+     */
+    private static final Color MINE_COLOR = Color.RED;
+
+    /**
+     * Color of the visible part of the field.
+     */
+    private static final Color VIEWPORT_COLOR = Color.BLUE;
+
+    /**
+     * Board view shown by the map.
+     */
+    private final BoardView boardView;
+
+    /**
+     * Viewport of the board view.
+     */
+    private final JViewport viewport;
+
+    /**
+     * Row count of the field.
+     */
+    private int rowCount;
+
+    /**
+     * Column count of the field.
+     */
+    private int columnCount;
+
+    /**
+     * Count of tiles in a side of a block.
+     */
+    private int blockSize = 1;
+
+    /**
+     * Count of blocks in a row.
+     */
+    private int blockColumns;
+
+    /**
+     * Count of open tiles in every block.
+     */
+    private int[] openCounts = new int[0];
+
+    /**
+     * Count of marks and mines in every block.
+     */
+    private int[] mineCounts = new int[0];
+
+    /**
+     * Indexes of blocks which changed since the last painting.
+     */
+    private int[] dirty = new int[64];
+
+    /**
+     * Count of changed blocks.
+     */
+    private int dirtyCount;
+
+    /**
+     * True for blocks which changed since the last painting.
+     */
+    private boolean[] dirtyFlags = new boolean[0];
+
+    /**
+     * Downsampled field, one pixel per block.
+     */
+    private BufferedImage image;
+
+    /**
+     * Constructor. Map starts following the board view and its viewport.
+     *
+     * @param boardView board view shown by the map
+     * @param viewport  viewport of the board view
+     */
+    public MiniMap(BoardView boardView, JViewport viewport) {
+        this.boardView = boardView;
+        this.viewport = viewport;
+
+        setOpaque(true);
+        viewport.addChangeListener(changeEvent -> repaint());
+
+        final MouseAdapter mouseAdapter = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent mouseEvent) {
+                scrollTo(mouseEvent.getPoint());
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent mouseEvent) {
+                scrollTo(mouseEvent.getPoint());
+            }
+        };
+        addMouseListener(mouseAdapter);
+        addMouseMotionListener(mouseAdapter);
+
+        boardView.setMiniMap(this);
+    }
+
+    /**
+     * Reads all tiles of a new field.
+     *
+     * @param rowCount    row count
+     * @param columnCount column count
+     * @param sprites     sprite shown on every tile
+     */
+    void setTiles(int rowCount, int columnCount, byte[] sprites) {
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+
+        blockSize = (Math.max(rowCount, columnCount) + MAX_SIZE - 1) / MAX_SIZE;
+        blockColumns = (columnCount + blockSize - 1) / blockSize;
+
+        final int blockRows = (rowCount + blockSize - 1) / blockSize;
+        openCounts = new int[blockRows * blockColumns];
+        mineCounts = new int[openCounts.length];
+        dirtyFlags = new boolean[openCounts.length];
+        dirtyCount = 0;
+
+        for (int index = 0; index < sprites.length; ++index) {
+            final int block = blockOf(index);
+
+            if (SpriteAtlas.isOpen(sprites[index])) {
+                ++openCounts[block];
+            }
+            else if (SpriteAtlas.isMine(sprites[index])) {
+                ++mineCounts[block];
+            }
+        }
+
+        image = new BufferedImage(blockColumns, blockRows,
+                BufferedImage.TYPE_INT_RGB);
+        for (int block = 0; block < openCounts.length; ++block) {
+            paintBlock(block);
+        }
+
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Updates counts of the block of a tile whose sprite changed.
+     *
+     * @param index     index of the tile
+     * @param oldSprite sprite shown before
+     * @param newSprite sprite shown now
+     */
+    void tileChanged(int index, int oldSprite, int newSprite) {
+        final int block = blockOf(index);
+
+        if (SpriteAtlas.isOpen(oldSprite)) {
+            --openCounts[block];
+        }
+        else if (SpriteAtlas.isMine(oldSprite)) {
+            --mineCounts[block];
+        }
+
+        if (SpriteAtlas.isOpen(newSprite)) {
+            ++openCounts[block];
+        }
+        else if (SpriteAtlas.isMine(newSprite)) {
+            ++mineCounts[block];
+        }
+
+        if (!dirtyFlags[block]) {
+            dirtyFlags[block] = true;
+            if (dirtyCount == dirty.length) {
+                dirty = Arrays.copyOf(dirty, dirtyCount * 2);
+            }
+            dirty[dirtyCount++] = block;
+        }
+    }
+
+    /**
+     * Returns size of the map, whole pixels per block.
+     *
+     * @return preferred size
+     */
+    @Override
+    public Dimension getPreferredSize() {
+        if (image == null) {
+            return new Dimension(MAX_SIZE, MAX_SIZE);
+        }
+
+        return new Dimension(image.getWidth() * getScale(),
+                image.getHeight() * getScale());
+    }
+
+    /**
+     * Paints changed blocks into the image, then the image and the
+     * visible part of the field.
+     *
+     * @param g graphics
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(getBackground());
+        g.fillRect(0, 0, getWidth(), getHeight());
+
+        if (image == null) {
+            return;
+        }
+
+        for (int i = 0; i < dirtyCount; ++i) {
+            dirtyFlags[dirty[i]] = false;
+            paintBlock(dirty[i]);
+        }
+        dirtyCount = 0;
+
+        final int scale = getScale();
+        g.drawImage(image, 0, 0, image.getWidth() * scale,
+                image.getHeight() * scale, null);
+
+        final Rectangle visible = viewport.getViewRect();
+        final double pixelsPerPoint =
+                (double) scale / (blockSize * boardView.getTileSize());
+
+        g.setColor(VIEWPORT_COLOR);
+        g.drawRect((int) (visible.x * pixelsPerPoint),
+                (int) (visible.y * pixelsPerPoint),
+                Math.max(1, (int) (visible.width * pixelsPerPoint) - 1),
+                Math.max(1, (int) (visible.height * pixelsPerPoint) - 1));
+    }
+
+    /**
+     * Returns count of screen pixels per pixel of the image.
+     *
+     * @return scale of the image
+     */
+    private int getScale() {
+        return Math.max(1,
+                MAX_SIZE / Math.max(image.getWidth(), image.getHeight()));
+    }
+
+    /**
+     * Returns block of a tile.
+     *
+     * @param index index of the tile
+     * @return index of the block
+     */
+    private int blockOf(int index) {
+        return (index / columnCount / blockSize) * blockColumns +
+                index % columnCount / blockSize;
+    }
+
+    /**
+     * Paints pixel of the block. Color goes from closed to open by
+     * the share of open tiles, and towards red by the share of marks and
+     * mines.
+     *
+     * @param block index of the block
+     */
+    private void paintBlock(int block) {
+        final int blockRow = block / blockColumns;
+        final int blockColumn = block % blockColumns;
+        final int height = Math.min(blockSize, rowCount - blockRow * blockSize);
+        final int width =
+                Math.min(blockSize, columnCount - blockColumn * blockSize);
+        final double open = (double) openCounts[block] / (width * height);
+        final double mines = (double) mineCounts[block] / (width * height);
+
+        final Color color = mix(mix(CLOSED_COLOR, OPEN_COLOR, open),
+                MINE_COLOR, mines);
+        image.setRGB(blockColumn, blockRow, color.getRGB());
+    }
+
+    /**
+     * Returns mix of two colors.
+     *
+     * @param from  first color
+     * @param to    second color
+     * @param ratio share of the second color
+     * @return mixed color
+     */
+    private static Color mix(Color from, Color to, double ratio) {
+        return new Color(
+                (int) (from.getRed() + (to.getRed() - from.getRed()) * ratio),
+                (int) (from.getGreen() + (to.getGreen() - from.getGreen()) * ratio),
+                (int) (from.getBlue() + (to.getBlue() - from.getBlue()) * ratio));
+    }
+
+    /**
+     * Scrolls the board view so that the point of the map is in the middle
+     * of the viewport.
+     *
+     * @param point point of the map
+     */
+    private void scrollTo(Point point) {
+        if (image == null) {
+            return;
+        }
+
+        final double pointsPerPixel =
+                (double) blockSize * boardView.getTileSize() / getScale();
+        final Dimension extent = viewport.getExtentSize();
+        final Dimension size = boardView.getPreferredSize();
+        final int x = (int) (point.x * pointsPerPixel) - extent.width / 2;
+        final int y = (int) (point.y * pointsPerPixel) - extent.height / 2;
+
+        viewport.setViewPosition(new Point(
+                Math.max(0, Math.min(x, size.width - extent.width)),
+                Math.max(0, Math.min(y, size.height - extent.height))));
+    }
+}
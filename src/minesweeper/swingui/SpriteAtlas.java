@@ -0,0 +1,402 @@
+package minesweeper.swingui;
+
+import javax.swing.*;
+import javax.swing.border.BevelBorder;
+import javax.swing.border.Border;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+
+/**
+ * Every look of a tile painted once for one tile size and one screen.
+ *
+ * Sprites are painted side by side into one image in device pixels, so
+ * they stay sharp on scaled screens. Text, icons and borders are painted
+ * only when the atlas is created. Tiles are then copied from a volatile
+ * copy of the atlas in video memory, which is restored from the painted
+ * image when its contents are lost. Atlas of another tile size, screen
+ * or screen scale is not valid and must be created again.
+ */
+class SpriteAtlas {
+
+    /**
+     * Sprite of a closed tile.
+     */
+    static final int CLOSED = 0;
+
+    /**
+     * Sprite of a marked tile.
+     */
+    static final int MARKED = 1;
+
+    /**
+     * Sprite of an opened mine.
+     */
+    static final int OPEN_MINE = 2;
+
+    /**
+     * Sprite of a correctly marked mine after the game.
+     */
+    static final int MARKED_MINE = 3;
+
+    /**
+     * Sprite of a closed mine after victory.
+     */
+    static final int SOLVED_MINE = 4;
+
+    /**
+     * Sprite of a closed mine after defeat.
+     */
+    static final int FAILED_MINE = 5;
+
+    /**
+     * Sprite of a mark without a mine after defeat.
+     */
+    static final int WRONG_MARK = 6;
+
+    /**
+     * Sprite of an open clue with value 0, sprites of clues 1 to 8 follow.
+     */
+    static final int OPEN_CLUE = 7;
+
+    /**
+     * Count of sprites.
+     */
+    static final int SPRITE_COUNT = OPEN_CLUE + 9;
+
+    /**
+     * Size of a tile whose look does not need scaling.
+     */
+    private static final int BASE_TILE_SIZE = 30;
+
+    /**
+     * Icons.
+     */
+    private static final ImageIcon MINE_ICON =
+            new ImageIcon(SpriteAtlas.class.getResource("/img/mine.gif"));
+    private static final ImageIcon MARK_ICON =
+            new ImageIcon(SpriteAtlas.class.getResource("/img/mark.gif"));
+
+    /**
+     * Font of clue labels.
+     */
+    private static final Font CLUE_FONT = new Font("Dialog", Font.BOLD, 11);
+
+    /**
+     * Colors of clue labels.
+     */
+    private static final Color foregroundColors[] =
+            {
+                    Color.BLUE,
+                    Color.RED,
+                    Color.GREEN,
+                    Color.MAGENTA,
+                    Color.ORANGE,
+                    Color.CYAN,
+                    Color.PINK,
+                    Color.YELLOW
+            };
+
+    /**
+     * Component whose colors are used by the borders.
+     */
+    private final JComponent owner;
+
+    /**
+     * Size of a tile in user space.
+     */
+    private final int tileSize;
+
+    /**
+     * Screen of the atlas, null if there is no screen.
+     */
+    private final GraphicsConfiguration configuration;
+
+    /**
+     * Count of device pixels per pixel in user space.
+     */
+    private final double scale;
+
+    /**
+     * Size of a tile in device pixels.
+     */
+    private final int deviceTileSize;
+
+    /**
+     * Painted sprites in device pixels.
+     */
+    private final BufferedImage painted;
+
+    /**
+     * Copy of the painted sprites in video memory, null if there is no
+     * screen.
+     */
+    private VolatileImage accelerated;
+
+    /**
+     * Pixels of sprites in user space, row by row, created when first
+     * needed.
+     */
+    private int[][] pixels;
+
+    /**
+     * Constructor. Paints all sprites.
+     *
+     * @param owner         component whose colors are used by the borders
+     * @param tileSize      size of a tile in user space
+     * @param configuration screen of the atlas, null if there is no screen
+     */
+    SpriteAtlas(JComponent owner, int tileSize,
+                GraphicsConfiguration configuration) {
+        this.owner = owner;
+        this.tileSize = tileSize;
+        this.configuration = configuration;
+
+        scale = scaleOf(configuration);
+        deviceTileSize = (int) Math.round(tileSize * scale);
+        painted = paint(deviceTileSize, scale);
+    }
+
+    /**
+     * Returns true if the atlas fits the tile size and the screen.
+     *
+     * @param tileSize      size of a tile in user space
+     * @param configuration screen, null if there is no screen
+     * @return true if the atlas can be used
+     */
+    boolean isValid(int tileSize, GraphicsConfiguration configuration) {
+        return tileSize == this.tileSize &&
+                configuration == this.configuration &&
+                scaleOf(configuration) == scale;
+    }
+
+    /**
+     * Returns image to copy sprites from. Volatile copy is created or
+     * restored, if it is needed.
+     *
+     * @return image with sprites side by side
+     */
+    Image getImage() {
+        if (configuration == null) {
+            return painted;
+        }
+
+        if (accelerated == null ||
+                accelerated.validate(configuration) ==
+                        VolatileImage.IMAGE_INCOMPATIBLE) {
+            accelerated = configuration.createCompatibleVolatileImage(
+                    painted.getWidth(), painted.getHeight(), Transparency.OPAQUE);
+            restore();
+        }
+        else if (accelerated.contentsLost()) {
+            restore();
+        }
+
+        return accelerated;
+    }
+
+    /**
+     * Returns true if contents of the volatile copy were lost while the
+     * sprites were copied, so they must be copied again.
+     *
+     * @return true if contents were lost
+     */
+    boolean contentsLost() {
+        return accelerated != null && accelerated.contentsLost();
+    }
+
+    /**
+     * Copies sprite from the image of the atlas.
+     *
+     * @param g      graphics
+     * @param image  image of the atlas
+     * @param sprite sprite number
+     * @param x      x coordinate of the tile
+     * @param y      y coordinate of the tile
+     */
+    void draw(Graphics g, Image image, int sprite, int x, int y) {
+        final int source = sprite * deviceTileSize;
+
+        g.drawImage(image, x, y, x + tileSize, y + tileSize,
+                source, 0, source + deviceTileSize, deviceTileSize, null);
+    }
+
+    /**
+     * Returns pixels of the sprite in user space, row by row.
+     *
+     * @param sprite sprite number
+     * @return pixels of the sprite
+     */
+    int[] getPixels(int sprite) {
+        if (pixels == null) {
+            final BufferedImage image = scale == 1 ? painted : paint(tileSize, 1);
+
+            pixels = new int[SPRITE_COUNT][];
+            for (int i = 0; i < SPRITE_COUNT; ++i) {
+                pixels[i] = image.getRGB(i * tileSize, 0, tileSize, tileSize,
+                        null, 0, tileSize);
+            }
+        }
+
+        return pixels[sprite];
+    }
+
+    /**
+     * Returns true if the sprite shows an open tile.
+     *
+     * @param sprite sprite number
+     * @return true if the tile is open
+     */
+    static boolean isOpen(int sprite) {
+        return sprite >= OPEN_CLUE;
+    }
+
+    /**
+     * Returns true if the sprite shows a mark or a mine.
+     *
+     * @param sprite sprite number
+     * @return true if the tile shows a mark or a mine
+     */
+    static boolean isMine(int sprite) {
+        return sprite != CLOSED && sprite < OPEN_CLUE;
+    }
+
+    /**
+     * Returns count of device pixels per pixel in user space.
+     *
+     * @param configuration screen, null if there is no screen
+     * @return scale of the screen
+     */
+    private static double scaleOf(GraphicsConfiguration configuration) {
+        if (configuration == null) {
+            return 1;
+        }
+
+        final AffineTransform transform = configuration.getDefaultTransform();
+
+        return Math.max(transform.getScaleX(), transform.getScaleY());
+    }
+
+    /**
+     * Copies painted sprites into the volatile copy.
+     */
+    private void restore() {
+        final Graphics2D g = accelerated.createGraphics();
+
+        g.drawImage(painted, 0, 0, null);
+        g.dispose();
+    }
+
+    /**
+     * Paints all sprites side by side.
+     *
+     * @param size  size of a tile in pixels of the image
+     * @param scale count of pixels of the image per pixel in user space
+     * @return painted sprites
+     */
+    private BufferedImage paint(int size, double scale) {
+        final BufferedImage image = configuration == null ?
+                new BufferedImage(size * SPRITE_COUNT, size,
+                        BufferedImage.TYPE_INT_RGB) :
+                configuration.createCompatibleImage(size * SPRITE_COUNT, size,
+                        Transparency.OPAQUE);
+        final Graphics2D g = image.createGraphics();
+
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+
+        for (int sprite = 0; sprite < SPRITE_COUNT; ++sprite) {
+            final Graphics2D spriteGraphics =
+                    (Graphics2D) g.create(sprite * size, 0, size, size);
+
+            spriteGraphics.scale(scale, scale);
+            paintSprite(spriteGraphics, sprite);
+            spriteGraphics.dispose();
+        }
+
+        g.dispose();
+
+        return image;
+    }
+
+    /**
+     * Paints sprite the way tile labels used to look.
+     *
+     * @param g      graphics of the sprite in user space
+     * @param sprite sprite number
+     */
+    private void paintSprite(Graphics2D g, int sprite) {
+        final boolean open = sprite == OPEN_MINE || sprite == FAILED_MINE ||
+                sprite >= OPEN_CLUE;
+
+        switch (sprite) {
+            case OPEN_MINE:
+                g.setColor(Color.RED);
+                break;
+
+            case MARKED_MINE:
+                g.setColor(Color.GREEN);
+                break;
+
+            case SOLVED_MINE:
+            case FAILED_MINE:
+                g.setColor(Color.ORANGE);
+                break;
+
+            default:
+                g.setColor(owner.getBackground());
+                break;
+        }
+        g.fillRect(0, 0, tileSize, tileSize);
+
+        final Border border = BorderFactory.createBevelBorder(
+                open ? BevelBorder.LOWERED : BevelBorder.RAISED);
+        border.paintBorder(owner, g, 0, 0, tileSize, tileSize);
+
+        if (sprite == OPEN_MINE || sprite == FAILED_MINE) {
+            paintCentered(g, MINE_ICON);
+        }
+        else if (sprite == MARKED || sprite == MARKED_MINE ||
+                sprite == WRONG_MARK) {
+            paintCentered(g, MARK_ICON);
+        }
+        else if (sprite > OPEN_CLUE) {
+            final String text = String.valueOf(sprite - OPEN_CLUE);
+            final Font font = CLUE_FONT.deriveFont(
+                    CLUE_FONT.getSize2D() * tileSize / BASE_TILE_SIZE);
+            final FontMetrics metrics = g.getFontMetrics(font);
+
+            g.setFont(font);
+            g.setColor(foregroundColors[sprite - OPEN_CLUE - 1]);
+            g.drawString(text, (tileSize - metrics.stringWidth(text)) / 2,
+                    (tileSize - metrics.getHeight()) / 2 + metrics.getAscent());
+        }
+
+        if (sprite == WRONG_MARK) {
+            final int margin = tileSize / 5;
+
+            g.setColor(Color.RED);
+            g.setStroke(new BasicStroke(Math.max(1, tileSize / 15f)));
+            g.drawLine(margin, margin, tileSize - margin, tileSize - margin);
+            g.drawLine(tileSize - margin, margin, margin, tileSize - margin);
+        }
+    }
+
+    /**
+     * Paints icon in the middle of a sprite. Icon is scaled down with
+     * the tile.
+     *
+     * @param g    graphics of the sprite
+     * @param icon painted icon
+     */
+    private void paintCentered(Graphics g, ImageIcon icon) {
+        final int width = icon.getIconWidth() * tileSize / BASE_TILE_SIZE;
+        final int height = icon.getIconHeight() * tileSize / BASE_TILE_SIZE;
+
+        g.drawImage(icon.getImage(), (tileSize - width) / 2,
+                (tileSize - height) / 2, width, height, owner);
+    }
+}
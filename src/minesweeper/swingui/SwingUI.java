@@ -4,7 +4,9 @@ import minesweeper.IUserInterface;
 import minesweeper.Minesweeper;
 import minesweeper.Settings;
 import minesweeper.core.Field;
+import minesweeper.core.FieldChange;
 import minesweeper.core.GameState;
+import minesweeper.core.IFieldListener;
 import minesweeper.core.Tile;
 
 import javax.swing.*;
@@ -12,6 +14,8 @@ import javax.swing.border.BevelBorder;
 import java.awt.*;
 import java.awt.event.*;
 import java.util.Formatter;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class SwingUI extends JFrame implements IUserInterface {
 
@@ -20,6 +24,27 @@ public class SwingUI extends JFrame implements IUserInterface {
      */
     private Field field;
 
+    /**
+     * Listener of the playing field.
+     */
+    private IFieldListener fieldListener;
+
+    /**
+     * State of the game after the last shown move.
+     */
+    private GameState shownState = GameState.PLAYING;
+
+    /**
+     * Thread which makes moves and saves the game, one task after another,
+     * so that the field is never used by two threads at once.
+     */
+    private final ExecutorService gameLogic =
+            Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "Game logic");
+                thread.setDaemon(true);
+                return thread;
+            });
+
     /**
      * Panel for all components.
      */
@@ -35,6 +60,21 @@ public class SwingUI extends JFrame implements IUserInterface {
      */
     private JPanel fieldPanel;
 
+    /**
+     * View of the playing field.
+     */
+    private BoardView boardView;
+
+    /**
+     * Scroll pane of the board view.
+     */
+    private JScrollPane boardScrollPane;
+
+    /**
+     * Mini map of the playing field.
+     */
+    private MiniMap miniMap;
+
     /**
      * Panel for reamining mines.
      */
@@ -80,6 +120,11 @@ public class SwingUI extends JFrame implements IUserInterface {
      */
     private JMenu gameMenu;
 
+    /**
+     * View menu in menu bar.
+     */
+    private JMenu viewMenu;
+
     /**
      * Help menu in menu bar.
      */
@@ -95,6 +140,16 @@ public class SwingUI extends JFrame implements IUserInterface {
      */
     private JMenuItem newMenuItem;
 
+    /**
+     * Save menu item in game menu.
+     */
+    private JMenuItem saveMenuItem;
+
+    /**
+     * Load menu item in game menu.
+     */
+    private JMenuItem loadMenuItem;
+
     /**
      * Difficulty group in game menu.
      */
@@ -115,6 +170,11 @@ public class SwingUI extends JFrame implements IUserInterface {
      */
     private JRadioButtonMenuItem expertRadioButtonMenuItem;
 
+    /**
+     * No guessing check box in game menu.
+     */
+    private JCheckBoxMenuItem noGuessingMenuItem;
+
     /**
      * Exit game item in game menu.
      */
@@ -165,6 +225,7 @@ public class SwingUI extends JFrame implements IUserInterface {
         jMenuBar = new JMenuBar();
 
         createGameMenu();
+        createViewMenu();
         createHelpMenu();
 
         setJMenuBar(jMenuBar);
@@ -181,8 +242,34 @@ public class SwingUI extends JFrame implements IUserInterface {
             Minesweeper.getInstance().newGame();
         });
 
+        saveMenuItem = new JMenuItem("Save");
+        saveMenuItem.addActionListener(actionEvent -> {
+            final Field saved = field;
+            final long elapsedMillis =
+                    Minesweeper.getInstance().getPlayingMillis();
+
+            gameLogic.execute(() ->
+                    Minesweeper.getInstance().saveGame(saved, elapsedMillis));
+        });
+
+        loadMenuItem = new JMenuItem("Load");
+        loadMenuItem.addActionListener(actionEvent -> {
+            Minesweeper.getInstance().loadGame();
+        });
+
         createDifficultyGroup();
 
+        noGuessingMenuItem = new JCheckBoxMenuItem("No guessing");
+        noGuessingMenuItem.setToolTipText(
+                "New games can be solved without guessing");
+        noGuessingMenuItem.setSelected(
+                Minesweeper.getInstance().isNoGuessing());
+        noGuessingMenuItem.addItemListener(itemEvent -> {
+            Minesweeper.getInstance().setNoGuessing(
+                    itemEvent.getStateChange() == ItemEvent.SELECTED);
+            Minesweeper.getInstance().newGame();
+        });
+
         exitMenuItem = new JMenuItem("Exit");
         exitMenuItem.setToolTipText("Exit application");
         exitMenuItem.addActionListener(actionEvent -> {
@@ -190,16 +277,91 @@ public class SwingUI extends JFrame implements IUserInterface {
         });
 
         gameMenu.add(newMenuItem);
+        gameMenu.add(saveMenuItem);
+        gameMenu.add(loadMenuItem);
         gameMenu.addSeparator();
         gameMenu.add(beginnerRadioButtonMenuItem);
         gameMenu.add(intermediateRadioButtonMenuItem);
         gameMenu.add(expertRadioButtonMenuItem);
         gameMenu.addSeparator();
+        gameMenu.add(noGuessingMenuItem);
+        gameMenu.addSeparator();
         gameMenu.add(exitMenuItem);
 
         jMenuBar.add(gameMenu);
     }
 
+    /**
+     * Creates view menu with zoom of the playing field.
+     */
+    private void createViewMenu() {
+        viewMenu = new JMenu("View");
+
+        JMenuItem zoomInMenuItem = new JMenuItem("Zoom in");
+        zoomInMenuItem.setAccelerator(KeyStroke.getKeyStroke(
+                KeyEvent.VK_EQUALS, InputEvent.CTRL_DOWN_MASK));
+        zoomInMenuItem.addActionListener(actionEvent -> {
+            zoom(1, null);
+        });
+
+        JMenuItem zoomOutMenuItem = new JMenuItem("Zoom out");
+        zoomOutMenuItem.setAccelerator(KeyStroke.getKeyStroke(
+                KeyEvent.VK_MINUS, InputEvent.CTRL_DOWN_MASK));
+        zoomOutMenuItem.addActionListener(actionEvent -> {
+            zoom(-1, null);
+        });
+
+        JMenuItem actualSizeMenuItem = new JMenuItem("Actual size");
+        actualSizeMenuItem.setAccelerator(KeyStroke.getKeyStroke(
+                KeyEvent.VK_0, InputEvent.CTRL_DOWN_MASK));
+        actualSizeMenuItem.addActionListener(actionEvent -> {
+            boardView.setTileSize(BoardView.DEFAULT_TILE_SIZE, centerOfView());
+            updateMiniMapVisibility();
+        });
+
+        viewMenu.add(zoomInMenuItem);
+        viewMenu.add(zoomOutMenuItem);
+        viewMenu.add(actualSizeMenuItem);
+
+        jMenuBar.add(viewMenu);
+    }
+
+    /**
+     * Zooms the playing field.
+     *
+     * @param steps  count of zoom steps, negative to zoom out
+     * @param anchor point of the board view which stays in place, null for
+     *               the middle of the visible part
+     */
+    private void zoom(int steps, Point anchor) {
+        boardView.zoom(steps, anchor == null ? centerOfView() : anchor);
+        updateMiniMapVisibility();
+    }
+
+    /**
+     * Returns middle of the visible part of the board view.
+     *
+     * @return middle of the visible part
+     */
+    private Point centerOfView() {
+        Rectangle visible = boardScrollPane.getViewport().getViewRect();
+
+        return new Point((int) visible.getCenterX(), (int) visible.getCenterY());
+    }
+
+    /**
+     * Shows mini map only if the field does not fit into the viewport.
+     */
+    private void updateMiniMapVisibility() {
+        boolean visible = !boardView.getPreferredSize().equals(
+                boardView.getPreferredScrollableViewportSize());
+
+        if (miniMap.isVisible() != visible) {
+            miniMap.setVisible(visible);
+            pack();
+        }
+    }
+
     /**
      * Creates help menu in menu bar.
      */
@@ -291,6 +453,31 @@ public class SwingUI extends JFrame implements IUserInterface {
                 )
         );
 
+        fieldPanel.setLayout(new BorderLayout());
+        boardView = new BoardView();
+        boardView.addMouseListener(createFieldMouseListener());
+
+        boardScrollPane = new JScrollPane(boardView);
+        boardScrollPane.setBorder(BorderFactory.createEmptyBorder());
+        fieldPanel.add(boardScrollPane, BorderLayout.CENTER);
+
+        boardView.addMouseWheelListener(mouseWheelEvent -> {
+            if (mouseWheelEvent.isControlDown()) {
+                zoom(-mouseWheelEvent.getWheelRotation(),
+                        mouseWheelEvent.getPoint());
+            }
+            else {
+                // Listener of the view would otherwise stop scrolling.
+                boardScrollPane.dispatchEvent(SwingUtilities.convertMouseEvent(
+                        boardView, mouseWheelEvent, boardScrollPane));
+            }
+        });
+
+        miniMap = new MiniMap(boardView, boardScrollPane.getViewport());
+        miniMap.setBorder(BorderFactory.createEmptyBorder(0, 5, 0, 0));
+        miniMap.setVisible(false);
+        fieldPanel.add(miniMap, BorderLayout.EAST);
+
         contentPanel.add(fieldPanel, BorderLayout.CENTER);
     }
 
@@ -339,12 +526,14 @@ public class SwingUI extends JFrame implements IUserInterface {
 
     /**
      * Updates remaining mines label.
+     *
+     * @param remainingMineCount count of remaining mines
      */
-    private void updateRemainingMinesLabel() {
+    private void updateRemainingMinesLabel(int remainingMineCount) {
         StringBuilder stringBuilder = new StringBuilder();
         new Formatter(stringBuilder).format(
                 "%03d",
-                field.getRemainingMineCount());
+                remainingMineCount);
 
         remainingMinesLabel.setText(stringBuilder.toString());
     }
@@ -382,7 +571,7 @@ public class SwingUI extends JFrame implements IUserInterface {
         ActionListener actionListener = new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent actionEvent) {
-                if (field.getState() == GameState.PLAYING) {
+                if (shownState == GameState.PLAYING) {
                     updateElapsedTimeLabel();
                 }
             }
@@ -447,19 +636,22 @@ public class SwingUI extends JFrame implements IUserInterface {
 
     /**
      * Updates progress bar.
+     *
+     * @param openTilesCount count of open tiles
      */
-    private void updateProgressBar() {
+    private void updateProgressBar(int openTilesCount) {
         int allTilesCount = field.getRowCount() * field.getColumnCount();
         int clearTilesCount = allTilesCount - field.getMineCount();
-        int openTilesCount = field.getNumberOf(Tile.State.OPEN);
 
-        int openTilesPercent = (openTilesCount * 100) / clearTilesCount;
+        int openTilesPercent = (int) ((openTilesCount * 100L) / clearTilesCount);
 
         progressBar.setValue(openTilesPercent);
     }
 
     /**
-     * Creates mouse listener for playing field.
+     * Creates mouse listener for playing field. Clicked tile is found
+     * from the coordinates of the click and the move is made by the game
+     * logic thread.
      *
      * @return mouse listener for playing field
      */
@@ -467,43 +659,14 @@ public class SwingUI extends JFrame implements IUserInterface {
         MouseListener mouseListener = new MouseListener() {
             @Override
             public void mouseClicked(MouseEvent mouseEvent) {
-                if (field.getState() == GameState.PLAYING) {
-                    TileComponent tileComponent;
-
-                    if (SwingUtilities.isLeftMouseButton(mouseEvent)) {
-                        tileComponent = (TileComponent) mouseEvent.getSource();
-                        field.openTile(
-                                tileComponent.getRow(),
-                                tileComponent.getColumn());
-                        update();
-                    }
-
-                    if (SwingUtilities.isRightMouseButton(mouseEvent)) {
-                        tileComponent = (TileComponent) mouseEvent.getSource();
-                        field.markTile(
-                                tileComponent.getRow(),
-                                tileComponent.getColumn());
-                        update();
-                    }
-
-                    if (field.getState() == GameState.FAILED) {
-                        JOptionPane.showMessageDialog(
-                                null,
-                                "You lose!",
-                                "Defeat",
-                                JOptionPane.INFORMATION_MESSAGE);
-
-                        Minesweeper.getInstance().newGame();
-                    }
-
-                    else if (field.getState() == GameState.SOLVED) {
-                        JOptionPane.showMessageDialog(
-                                null,
-                                "You win",
-                                "Victory",
-                                JOptionPane.INFORMATION_MESSAGE);
-                        Minesweeper.getInstance().newGame();
-                    }
+                final Field target = field;
+                final int row = boardView.getRowAt(mouseEvent.getY());
+                final int column = boardView.getColumnAt(mouseEvent.getX());
+                final int button = mouseEvent.getButton();
+
+                if (shownState == GameState.PLAYING &&
+                        row >= 0 && column >= 0) {
+                    gameLogic.execute(() -> move(target, button, row, column));
                 }
             }
 
@@ -531,6 +694,35 @@ public class SwingUI extends JFrame implements IUserInterface {
         return mouseListener;
     }
 
+    /**
+     * Makes move on the game logic thread. Move is ignored if the game
+     * ended before it.
+     *
+     * @param field  field of the move
+     * @param button clicked mouse button
+     * @param row    row number
+     * @param column column number
+     */
+    private static void move(Field field, int button, int row, int column) {
+        if (field.getState() != GameState.PLAYING) {
+            return;
+        }
+
+        switch (button) {
+            case MouseEvent.BUTTON1:
+                field.openTile(row, column);
+                break;
+
+            case MouseEvent.BUTTON2:
+                field.chordTile(row, column);
+                break;
+
+            case MouseEvent.BUTTON3:
+                field.markTile(row, column);
+                break;
+        }
+    }
+
     /**
      * Starts new game.
      *
@@ -538,20 +730,18 @@ public class SwingUI extends JFrame implements IUserInterface {
      */
     @Override
     public void newGameStarted(Field field) {
+        if (this.field != null) {
+            this.field.removeListener(fieldListener);
+        }
+
         this.field = field;
+        shownState = field.getState();
+        fieldListener = change -> fieldChanged(field, change);
+        field.addListener(fieldListener);
 
-        fieldPanel.removeAll();
-        fieldPanel.setLayout(
-                new GridLayout(field.getRowCount(), field.getColumnCount()));
-
-        for (int i = 0; i < field.getRowCount(); ++i) {
-            for (int j = 0; j < field.getColumnCount(); ++j) {
-                TileComponent tileComponent =
-                        new TileComponent(field.getTile(i, j), i, j);
-                fieldPanel.add(tileComponent);
-                tileComponent.addMouseListener(createFieldMouseListener());
-            }
-        }
+        boardView.setField(field);
+        miniMap.setVisible(false);
+        updateMiniMapVisibility();
 
         update();
         pack();
@@ -564,22 +754,65 @@ public class SwingUI extends JFrame implements IUserInterface {
      */
     @Override
     public void update() {
-        TileComponent tileComponent;
+        updateRemainingMinesLabel(field.getRemainingMineCount());
+        updateElapsedTimeLabel();
+        updateProgressBar(field.getNumberOf(Tile.State.OPEN));
+    }
 
-        for (int i = 0; i < fieldPanel.getComponentCount(); ++i) {
-            tileComponent = (TileComponent) fieldPanel.getComponent(i);
-            tileComponent.updateStyle();
+    /**
+     * Runs the task on the event dispatch thread.
+     *
+     * @param task task to run
+     */
+    @Override
+    public void execute(Runnable task) {
+        SwingUtilities.invokeLater(task);
+    }
 
-            if (field.getState() == GameState.FAILED) {
-                tileComponent.updateFailedStyle();
-            }
-            else if (field.getState() == GameState.SOLVED) {
-                tileComponent.updateSolvedStyle();
-            }
-        }
+    /**
+     * Reads changed tiles on the thread which made the move and sends them
+     * to the board view on the event dispatch thread.
+     *
+     * @param field  field of the move
+     * @param change changed tiles and game state transition
+     */
+    private void fieldChanged(Field field, FieldChange change) {
+        final TileBatch batch = TileBatch.of(field, change);
+
+        SwingUtilities.invokeLater(() ->
+                boardView.show(batch, () -> batchShown(batch)));
+    }
+
+    /**
+     * Updates labels when all tiles of the move are shown, and announces
+     * the end of the game.
+     *
+     * @param batch shown move
+     */
+    private void batchShown(TileBatch batch) {
+        shownState = batch.getState();
 
-        updateRemainingMinesLabel();
+        updateRemainingMinesLabel(batch.getRemainingMineCount());
         updateElapsedTimeLabel();
-        updateProgressBar();
+        updateProgressBar(batch.getOpenCount());
+
+        if (shownState == GameState.FAILED) {
+            JOptionPane.showMessageDialog(
+                    null,
+                    "You lose!",
+                    "Defeat",
+                    JOptionPane.INFORMATION_MESSAGE);
+
+            Minesweeper.getInstance().newGame();
+        }
+
+        else if (shownState == GameState.SOLVED) {
+            JOptionPane.showMessageDialog(
+                    null,
+                    "You win",
+                    "Victory",
+                    JOptionPane.INFORMATION_MESSAGE);
+            Minesweeper.getInstance().newGame();
+        }
     }
 }
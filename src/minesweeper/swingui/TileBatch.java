@@ -0,0 +1,222 @@
+package minesweeper.swingui;
+
+import minesweeper.core.Clue;
+import minesweeper.core.Field;
+import minesweeper.core.FieldChange;
+import minesweeper.core.GameState;
+import minesweeper.core.Mine;
+import minesweeper.core.Tile;
+
+import java.util.Arrays;
+
+/**
+ * Sprites of tiles changed by one move, with the game state after the move.
+ *
+ * Batch is created on the thread which made the move, right after it, and
+ * is not changed afterwards. Event dispatch thread shows the batch without
+ * reading the field, so it never sees a field in the middle of a move.
+ */
+class TileBatch {
+
+    /**
+     * Field of the move.
+     */
+    private final Field field;
+
+    /**
+     * Indexes of changed tiles, in the order in which they changed.
+     */
+    private final int[] indexes;
+
+    /**
+     * Sprite of every changed tile.
+     */
+    private final byte[] sprites;
+
+    /**
+     * Count of changed tiles.
+     */
+    private final int tileCount;
+
+    /**
+     * State of the game after the move.
+     */
+    private final GameState state;
+
+    /**
+     * Count of remaining mines after the move.
+     */
+    private final int remainingMineCount;
+
+    /**
+     * Count of open tiles after the move.
+     */
+    private final int openCount;
+
+    /**
+     * Constructor.
+     *
+     * @param field     field of the move
+     * @param indexes   indexes of changed tiles
+     * @param sprites   sprite of every changed tile
+     * @param tileCount count of changed tiles
+     */
+    private TileBatch(Field field, int[] indexes, byte[] sprites, int tileCount) {
+        this.field = field;
+        this.indexes = indexes;
+        this.sprites = sprites;
+        this.tileCount = tileCount;
+
+        state = field.getState();
+        remainingMineCount = field.getRemainingMineCount();
+        openCount = field.getNumberOf(Tile.State.OPEN);
+    }
+
+    /**
+     * Reads sprites of tiles changed by the move. When the game ends, all
+     * mines and marks are read as well, because their look changes too.
+     * Must be called by the thread which made the move, before the next
+     * move.
+     *
+     * @param field  field of the move
+     * @param change tiles changed by the move
+     * @return batch of changed tiles
+     */
+    static TileBatch of(Field field, FieldChange change) {
+        final int columnCount = field.getColumnCount();
+        final GameState state = field.getState();
+
+        int[] indexes = new int[change.getTileCount()];
+        int count = 0;
+
+        for (int i = 0; i < change.getTileCount(); ++i) {
+            indexes[count++] =
+                    change.getRow(i) * columnCount + change.getColumn(i);
+        }
+
+        if (change.isStateChanged() && state != GameState.PLAYING) {
+            for (int row = 0; row < field.getRowCount(); ++row) {
+                for (int column = 0; column < columnCount; ++column) {
+                    final Tile tile = field.getTile(row, column);
+
+                    if (tile instanceof Mine ||
+                            tile.getState() == Tile.State.MARKED) {
+                        if (count == indexes.length) {
+                            indexes = Arrays.copyOf(indexes,
+                                    Math.max(64, count * 2));
+                        }
+                        indexes[count++] = row * columnCount + column;
+                    }
+                }
+            }
+        }
+
+        final byte[] sprites = new byte[count];
+        for (int i = 0; i < count; ++i) {
+            sprites[i] = (byte) spriteOf(field.getTile(
+                    indexes[i] / columnCount, indexes[i] % columnCount), state);
+        }
+
+        return new TileBatch(field, indexes, sprites, count);
+    }
+
+    /**
+     * Returns field of the move.
+     *
+     * @return field of the move
+     */
+    Field getField() {
+        return field;
+    }
+
+    /**
+     * Returns count of changed tiles.
+     *
+     * @return count of changed tiles
+     */
+    int getTileCount() {
+        return tileCount;
+    }
+
+    /**
+     * Returns index of the changed tile.
+     *
+     * @param i number of the changed tile
+     * @return index of the tile in the field
+     */
+    int getIndex(int i) {
+        return indexes[i];
+    }
+
+    /**
+     * Returns sprite of the changed tile.
+     *
+     * @param i number of the changed tile
+     * @return sprite number
+     */
+    int getSprite(int i) {
+        return sprites[i];
+    }
+
+    /**
+     * Returns state of the game after the move.
+     *
+     * @return state of the game
+     */
+    GameState getState() {
+        return state;
+    }
+
+    /**
+     * Returns count of remaining mines after the move.
+     *
+     * @return remaining mine count
+     */
+    int getRemainingMineCount() {
+        return remainingMineCount;
+    }
+
+    /**
+     * Returns count of open tiles after the move.
+     *
+     * @return open tile count
+     */
+    int getOpenCount() {
+        return openCount;
+    }
+
+    /**
+     * Returns sprite number of the tile.
+     *
+     * @param tile  displayed tile
+     * @param state state of the game
+     * @return sprite number
+     */
+    static int spriteOf(Tile tile, GameState state) {
+        final boolean mine = tile instanceof Mine;
+
+        switch (tile.getState()) {
+            case OPEN:
+                return mine ? SpriteAtlas.OPEN_MINE :
+                        SpriteAtlas.OPEN_CLUE + ((Clue) tile).getValue();
+
+            case MARKED:
+                if (mine && state != GameState.PLAYING) {
+                    return SpriteAtlas.MARKED_MINE;
+                }
+                if (!mine && state == GameState.FAILED) {
+                    return SpriteAtlas.WRONG_MARK;
+                }
+                return SpriteAtlas.MARKED;
+
+            default:
+                if (mine && state == GameState.SOLVED) {
+                    return SpriteAtlas.SOLVED_MINE;
+                }
+                if (mine && state == GameState.FAILED) {
+                    return SpriteAtlas.FAILED_MINE;
+                }
+                return SpriteAtlas.CLOSED;
+        }
+    }
+}